@@ -0,0 +1,253 @@
+package cz.yorick.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the serializable fields of classes marked with @GenerateFieldsCodec at compile time and generates
+ * a GeneratedClassFields implementation for them, so ClassFieldsCodec does not have to scan the class using
+ * reflection. Follows the same rules as the reflection scan, but reports invalid field ids as compile errors
+ * */
+@SupportedAnnotationTypes(ClassFieldsProcessor.GENERATE_FIELDS_CODEC)
+@SupportedSourceVersion(SourceVersion.RELEASE_21)
+public class ClassFieldsProcessor extends AbstractProcessor {
+    static final String GENERATE_FIELDS_CODEC = "cz.yorick.api.codec.annotations.GenerateFieldsCodec";
+    private static final String FIELD_ID = "cz.yorick.api.codec.annotations.FieldId";
+    private static final String IGNORE = "cz.yorick.api.codec.annotations.Ignore";
+    private static final String INCLUDE_PARENT = "cz.yorick.api.codec.annotations.IncludeParent";
+    private static final String OPTIONAL_FIELD = "cz.yorick.api.codec.annotations.OptionalField";
+    private static final String GENERATED_CLASS_FIELDS = "cz.yorick.api.codec.GeneratedClassFields";
+    //has to match GeneratedClassFields.SUFFIX
+    private static final String SUFFIX = "_ClassFields";
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if(element.getKind() == ElementKind.RECORD) {
+                    error(element, "ClassFieldsCodec does not accept records since they are immutable, if the class has to be a record you need to write your own codec");
+                    continue;
+                }
+
+                if(element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateFieldsCodec can only be used on classes");
+                    continue;
+                }
+
+                if(element.getModifiers().contains(Modifier.PRIVATE)) {
+                    error(element, "Classes marked with @GenerateFieldsCodec cannot be private");
+                    continue;
+                }
+
+                generate((TypeElement) element);
+            }
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        LinkedHashMap<String, FieldInfo> fields = new LinkedHashMap<>();
+        if(!collectFields(type, type, fields)) {
+            return;
+        }
+
+        PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        String generatedName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+
+        StringBuilder source = new StringBuilder();
+        if(!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(generatedName).append(" implements ").append(GENERATED_CLASS_FIELDS).append(" {\n");
+        source.append("    @Override\n");
+        source.append("    public java.util.List<").append(GENERATED_CLASS_FIELDS).append(".FieldEntry> fields() {\n");
+        source.append("        return java.util.List.of(");
+        List<String> entries = new ArrayList<>();
+        for (Map.Entry<String, FieldInfo> entry : fields.entrySet()) {
+            entries.add(fieldEntry(entry.getKey(), entry.getValue(), type, generatedName, packageElement));
+        }
+        source.append(entries.isEmpty() ? "" : "\n            " + String.join(",\n            ", entries) + "\n        ");
+        source.append(");\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Failed to write the generated class " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String fieldEntry(String id, FieldInfo info, TypeElement target, String generatedName, PackageElement targetPackage) {
+        VariableElement field = info.field();
+        String name = field.getSimpleName().toString();
+        //class literals cannot be used for types which are not visible from the generated class,
+        //the declaring class then gets loaded by its name and the type is taken from the field
+        if(!isAccessible(info.declaringClass().asType(), targetPackage) || !isAccessible(field.asType(), targetPackage)) {
+            String binaryName = this.processingEnv.getElementUtils().getBinaryName(info.declaringClass()).toString();
+            return GENERATED_CLASS_FIELDS + ".FieldEntry.reflected(" + literal(id) + ", " + literal(name) + ", " + literal(binaryName) + ", " + info.required() + ", " + generatedName + ".class)";
+        }
+
+        String fieldType = erasure(field.asType());
+        String arguments = literal(id) + ", " + literal(name) + ", " + erasure(info.declaringClass().asType()) + ".class, " + fieldType + ".class, " + info.required();
+        if(!isAccessible(target.asType(), targetPackage) || !canAccessDirectly(field, targetPackage)) {
+            return GENERATED_CLASS_FIELDS + ".FieldEntry.reflected(" + arguments + ")";
+        }
+
+        String targetName = erasure(target.asType());
+        //values of object fields do not need a cast
+        String value = fieldType.equals("java.lang.Object") ? "value" : "(" + fieldType + ") value";
+        return "new " + GENERATED_CLASS_FIELDS + ".FieldEntry(" + arguments + ", " +
+                "instance -> ((" + targetName + ") instance)." + name + ", " +
+                "(instance, value) -> ((" + targetName + ") instance)." + name + " = " + value + ")";
+    }
+
+    //the generated class lives in the package of the annotated class, private and final
+    //fields or fields which are not visible from that package are accessed using reflection
+    private boolean canAccessDirectly(VariableElement field, PackageElement targetPackage) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+            return false;
+        }
+
+        TypeElement declaringClass = (TypeElement) field.getEnclosingElement();
+        return isAccessible(declaringClass.asType(), targetPackage) && (modifiers.contains(Modifier.PUBLIC) || this.processingEnv.getElementUtils().getPackageOf(declaringClass).equals(targetPackage));
+    }
+
+    //a type can be named from the package if the type and all the classes enclosing it are visible from it
+    private boolean isAccessible(TypeMirror type, PackageElement targetPackage) {
+        TypeMirror erased = this.processingEnv.getTypeUtils().erasure(type);
+        if(erased.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) erased).getComponentType(), targetPackage);
+        }
+
+        if(erased.getKind() != TypeKind.DECLARED) {
+            return true;
+        }
+
+        Element element = ((DeclaredType) erased).asElement();
+        while (element instanceof TypeElement) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if(modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+
+            if(!modifiers.contains(Modifier.PUBLIC) && !this.processingEnv.getElementUtils().getPackageOf(element).equals(targetPackage)) {
+                return false;
+            }
+
+            element = element.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    private boolean collectFields(TypeElement annotated, TypeElement type, LinkedHashMap<String, FieldInfo> allFields) {
+        boolean valid = true;
+        LinkedHashMap<String, FieldInfo> declaredFields = new LinkedHashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if(field.getModifiers().contains(Modifier.STATIC) || getAnnotation(field, IGNORE) != null) {
+                continue;
+            }
+
+            String id = getFieldId(field);
+            if(id == null) {
+                valid = false;
+                continue;
+            }
+
+            FieldInfo previous = declaredFields.put(id, new FieldInfo(field, type, getAnnotation(field, OPTIONAL_FIELD) == null));
+            if(previous != null) {
+                error(field, "Fields with matching ids found in class '" + type.getQualifiedName() + "', field '" + previous.field().getSimpleName() + "' and '" + field.getSimpleName() + "' have the same id!");
+                valid = false;
+            }
+        }
+
+        for (Map.Entry<String, FieldInfo> entry : declaredFields.entrySet()) {
+            FieldInfo previous = allFields.putIfAbsent(entry.getKey(), entry.getValue());
+            if(previous != null) {
+                FieldInfo field = entry.getValue();
+                error(annotated, "Duplicate field id '" + entry.getKey() + "' found!" +
+                        " Field '" + field.field().getSimpleName() + "' declared by class '" + field.declaringClass().getQualifiedName() + "' has the same id as the previously specified" +
+                        " field '" + previous.field().getSimpleName() + "' declared by class '" + previous.declaringClass().getQualifiedName() + "', either change one of the fields names or use the @FieldId or @Ignore annotation");
+                valid = false;
+            }
+        }
+
+        if(getAnnotation(type, INCLUDE_PARENT) != null && type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            TypeElement parent = (TypeElement) ((DeclaredType) type.getSuperclass()).asElement();
+            valid &= collectFields(annotated, parent, allFields);
+        }
+
+        return valid;
+    }
+
+    private String getFieldId(VariableElement field) {
+        AnnotationMirror fieldId = getAnnotation(field, FIELD_ID);
+        if(fieldId == null) {
+            return field.getSimpleName().toString();
+        }
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : fieldId.getElementValues().entrySet()) {
+            if(entry.getKey().getSimpleName().contentEquals("id")) {
+                String id = (String) entry.getValue().getValue();
+                if(id.isEmpty()) {
+                    error(field, "Field '" + field.getSimpleName() + "' is marked with @FieldId(id = \"\"), the name of the field cannot be empty!");
+                    return null;
+                }
+
+                return id;
+            }
+        }
+
+        return field.getSimpleName().toString();
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private String erasure(TypeMirror type) {
+        return this.processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private record FieldInfo(VariableElement field, TypeElement declaringClass, boolean required) {
+    }
+}
@@ -1,12 +1,21 @@
 package cz.yorick;
 
 import cz.yorick.command.SimpleResourcesClientCommand;
+import cz.yorick.network.RegistrySyncClient;
+import cz.yorick.resources.ConfigWatcher;
+import cz.yorick.resources.loader.AsyncFileWriter;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 
 public class SimpleResourcesClient implements ClientModInitializer {
 	@Override
 	public void onInitializeClient() {
 		ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> new SimpleResourcesClientCommand(dispatcher));
+		RegistrySyncClient.init();
+		ClientLifecycleEvents.CLIENT_STARTED.register(client -> {
+			AsyncFileWriter.flush();
+			ConfigWatcher.setClientExecutor(client);
+		});
 	}
 }
\ No newline at end of file
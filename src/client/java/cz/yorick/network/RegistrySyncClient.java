@@ -0,0 +1,12 @@
+package cz.yorick.network;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+
+public class RegistrySyncClient {
+    public static void init() {
+        //global receivers are invoked on the client thread
+        ClientPlayNetworking.registerGlobalReceiver(RegistrySyncPayload.ID, (payload, context) -> RegistrySync.receive(payload, context.player().getRegistryManager()));
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> client.execute(RegistrySync::clearReceived));
+    }
+}
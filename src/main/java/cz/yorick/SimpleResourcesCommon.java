@@ -1,16 +1,19 @@
 package cz.yorick;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
-import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import cz.yorick.api.FileTypeInitializer;
 import cz.yorick.api.resources.ReloadableResourceKey;
-import cz.yorick.api.resources.SimpleResources;
 import cz.yorick.command.SimpleResourcesServerCommand;
+import cz.yorick.network.RegistrySync;
+import cz.yorick.resources.ConfigWatcher;
+import cz.yorick.resources.loader.AsyncFileWriter;
 import cz.yorick.resources.loader.CodecResourceReadWriter;
+import cz.yorick.resources.loader.ResourceFileLoader;
+import cz.yorick.resources.type.SimpleReloadableResource;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.util.Identifier;
@@ -21,12 +24,20 @@ import org.slf4j.LoggerFactory;
 public class SimpleResourcesCommon implements ModInitializer {
 	public static final String MOD_ID = "simple-resources";
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
-	private static ReloadableResourceKey<Pair<String, Boolean>> CONFIG;
+	private static ReloadableResourceKey<Config> CONFIG;
 	private static boolean loadedConfig = false;
 
 	@Override
 	public void onInitialize() {
 		ensureRegistered();
+		RegistrySync.init();
+		//the default files have to be written before the server reads any of them
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> AsyncFileWriter.flush());
+		ServerLifecycleEvents.SERVER_STARTED.register(server -> ConfigWatcher.setServerExecutor(server));
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> ConfigWatcher.setServerExecutor(null));
+		if(shouldWatchConfigFiles()) {
+			ConfigWatcher.start();
+		}
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
 			//register the reloadServerConfig command only on the dedicated server
 			if(environment == CommandManager.RegistrationEnvironment.DEDICATED) {
@@ -38,23 +49,84 @@ public class SimpleResourcesCommon implements ModInitializer {
 	//forces the extra file types and main config to load,
 	//this is called either in the entrypoint or when a
 	//mod attempts to load a config
-	public static void ensureRegistered() {
+	public static synchronized void ensureRegistered() {
 		if(!loadedConfig) {
 			loadedConfig = true;
 			FabricLoader.getInstance().invokeEntrypoints(MOD_ID + ":file_type", FileTypeInitializer.class, CodecResourceReadWriter::registerOps);
-			MapCodec<Pair<String, Boolean>> codec = RecordCodecBuilder.mapCodec(instance -> instance.group(
-				Codecs.NON_EMPTY_STRING.fieldOf("preferred_format").forGetter(Pair::getFirst),
-				Codec.BOOL.fieldOf("broadcast_reload_errors").forGetter(Pair::getSecond)
-			).apply(instance, Pair::new));
-			CONFIG = SimpleResources.reloadableConfig(Identifier.of(MOD_ID, "config"), () -> Pair.of("json", true), codec.codec());
+			//always eager, since it contains the option which enables lazy loading
+			CONFIG = new SimpleReloadableResource<>(Identifier.of(MOD_ID, "config"), new ResourceFileLoader<>(() -> Config.DEFAULT, new CodecResourceReadWriter<>(Config.CODEC, extension -> true)), newValue -> {}, false);
 		}
 	}
 
+	private static Config getConfig() {
+		//other mods can register configs before this entrypoint runs, the options have to be loaded by then,
+		//while the config itself is loading this does nothing and the default values are used
+		ensureRegistered();
+		return CONFIG != null ? CONFIG.getValue() : Config.DEFAULT;
+	}
+
 	public static String getPreferredFormat() {
-		return CONFIG != null ? CONFIG.getValue().getFirst() : "json";
+		return getConfig().preferredFormat();
 	}
 
 	public static boolean shouldBroadcastErrors() {
-		return CONFIG != null ? CONFIG.getValue().getSecond() : true;
+		return getConfig().broadcastReloadErrors();
+	}
+
+	public static int getResourceTreeParallelism() {
+		return getConfig().resourceTreeParallelism();
+	}
+
+	public static int getDataLoaderParallelism() {
+		return getConfig().dataLoaderParallelism();
+	}
+
+	public static boolean shouldCacheDatapackResources() {
+		return getConfig().cacheDatapackResources();
+	}
+
+	public static boolean shouldWatchConfigFiles() {
+		return getConfig().watchConfigFiles();
+	}
+
+	public static boolean shouldLoadConfigsLazily() {
+		return getConfig().lazyConfigLoading();
+	}
+
+	public static boolean shouldPrefetchConfigs() {
+		return getConfig().prefetchConfigs();
+	}
+
+	/**
+	 * @param resourceTreeParallelism The maximum amount of threads used to parse the files of a single resource tree
+	 *                                or data pack resource, 1 parses the files on the thread which loads them
+	 * @param dataLoaderParallelism The maximum amount of threads used to parse the files in extra formats of a single
+	 *                              vanilla data loader (recipes, loot tables...), 1 parses them on the reload thread.
+	 *                              Only raise this if the codecs of all the loaders are thread safe
+	 * @param cacheDatapackResources If datapack resources whose content did not change should reuse the value decoded
+	 *                               during the previous reload, the values are then shared between reloads. Only values
+	 *                               which decode without the registry lookup are reused, since the reloadable registries
+	 *                               and tags get created again on every reload
+	 * @param watchConfigFiles If reloadable resources should get reloaded automatically when their files change,
+	 *                         only takes effect after a restart
+	 * @param lazyConfigLoading If reloadable configs should only get loaded once their value is first requested,
+	 *                          their reload listener then gets invoked on the thread which first requests the value
+	 *                          instead of the one registering the config. This config is always loaded immediately
+	 * @param prefetchConfigs If lazy configs should start loading on background threads as soon as they are registered,
+	 *                        the reload listeners are still invoked on the thread which first requests the value
+	 * */
+	public record Config(String preferredFormat, boolean broadcastReloadErrors, int resourceTreeParallelism, int dataLoaderParallelism, boolean cacheDatapackResources, boolean watchConfigFiles, boolean lazyConfigLoading, boolean prefetchConfigs) {
+		public static final Config DEFAULT = new Config("json", true, 1, 1, false, false, false, false);
+		//new options are optional, so existing config files keep working
+		public static final Codec<Config> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+				Codecs.NON_EMPTY_STRING.fieldOf("preferred_format").forGetter(Config::preferredFormat),
+				Codec.BOOL.fieldOf("broadcast_reload_errors").forGetter(Config::broadcastReloadErrors),
+				Codec.intRange(1, 64).optionalFieldOf("resource_tree_parallelism", DEFAULT.resourceTreeParallelism()).forGetter(Config::resourceTreeParallelism),
+				Codec.intRange(1, 64).optionalFieldOf("data_loader_parallelism", DEFAULT.dataLoaderParallelism()).forGetter(Config::dataLoaderParallelism),
+				Codec.BOOL.optionalFieldOf("cache_datapack_resources", DEFAULT.cacheDatapackResources()).forGetter(Config::cacheDatapackResources),
+				Codec.BOOL.optionalFieldOf("watch_config_files", DEFAULT.watchConfigFiles()).forGetter(Config::watchConfigFiles),
+				Codec.BOOL.optionalFieldOf("lazy_config_loading", DEFAULT.lazyConfigLoading()).forGetter(Config::lazyConfigLoading),
+				Codec.BOOL.optionalFieldOf("prefetch_configs", DEFAULT.prefetchConfigs()).forGetter(Config::prefetchConfigs)
+		).apply(instance, Config::new));
 	}
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package cz.yorick.api;
 
+import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.MapCodec;
 
 import java.io.Reader;
 import java.io.Writer;
@@ -10,4 +12,20 @@ public interface FileTypeInitializer<T> {
     void write(Writer writer, T data) throws Exception;
     String getExtension();
     DynamicOps<T> getOps();
+
+    /**
+     * Allows map codecs which only read their own keys to be decoded straight
+     * from the file, without reading the whole file into a tree first
+     * @return The stream decoder or null if the format does not support it
+     * */
+    default StreamDecoder<T> getStreamDecoder() {
+        return null;
+    }
+
+    interface StreamDecoder<T> {
+        /**
+         * @param codec The codec to decode with, only entries with keys returned by {@link MapCodec#keys(DynamicOps)} need to be read
+         * */
+        <V> DataResult<V> decode(Reader reader, DynamicOps<T> ops, MapCodec<V> codec) throws Exception;
+    }
 }
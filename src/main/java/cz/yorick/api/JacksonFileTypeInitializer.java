@@ -0,0 +1,38 @@
+package cz.yorick.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mojang.serialization.DynamicOps;
+import cz.yorick.ops.JacksonOps;
+import cz.yorick.ops.JacksonStreamDecoder;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link FileTypeInitializer} for formats supported by jackson, reads the file
+ * token by token, so entries which are never read by the codec do not get built
+ * */
+public interface JacksonFileTypeInitializer extends FileTypeInitializer<JsonNode> {
+    /**
+     * Creates the parser for the format, something like {@code new TomlFactory().createParser(reader)}
+     * */
+    JsonParser createParser(Reader reader) throws IOException;
+
+    @Override
+    default JsonNode read(Reader reader) throws Exception {
+        try (JsonParser parser = createParser(reader)) {
+            return JacksonStreamDecoder.readTree(parser);
+        }
+    }
+
+    @Override
+    default DynamicOps<JsonNode> getOps() {
+        return JacksonOps.INSTANCE;
+    }
+
+    @Override
+    default StreamDecoder<JsonNode> getStreamDecoder() {
+        return new JacksonStreamDecoder(this::createParser);
+    }
+}
@@ -4,6 +4,7 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.MapCodec;
 import cz.yorick.api.codec.annotations.FieldId;
+import cz.yorick.api.codec.annotations.GenerateFieldsCodec;
 import cz.yorick.api.codec.annotations.Ignore;
 import cz.yorick.api.codec.annotations.IncludeParent;
 import cz.yorick.api.codec.annotations.OptionalField;
@@ -24,6 +25,7 @@ import java.util.function.Supplier;
  *   can be used. The string is the fields name, but you can mark a field with {@link FieldId} to change its id</li>
  *   <li>If a field does not need to be specified in the loaded data, you can use {@link OptionalField}</li>
  *   <li>If the fields of the classes parent class should also get serialized, mark the class with {@link IncludeParent}</li>
+ *   <li>If the class is marked with {@link GenerateFieldsCodec} and the annotation processor is registered, the fields are collected at compile time instead</li>
  * </ul>
  * */
 public interface ClassFieldsCodec {
@@ -18,13 +18,21 @@ public interface CodecUtils {
      }
 
     /**
-     * Converts the enum to lower case for serialization and back to
-     * upper case before calling Enum.valueOf()
+     * Converts the enum to lower case for serialization, while loading
+     * the name is matched ignoring case
      * */
     static <T extends Enum<T>> Codec<T> caseConvertingEnum(Class<T> enumClass) {
         return EnumCodec.caseConverting(enumClass);
     }
 
+    /**
+     * Serializes the enum as its ordinal, which is more compact for binary formats,
+     * but changes meaning if the enum constants get reordered
+     * */
+    static <T extends Enum<T>> Codec<T> ordinalEnum(Class<T> enumClass) {
+        return EnumCodec.ordinal(enumClass);
+    }
+
     /**
      * Same functionality as {@link com.mojang.serialization.Codec#unboundedMap(Codec, Codec)}, but returns a {@link com.mojang.serialization.MapCodec} instead of a {@link com.mojang.serialization.Codec}
      * this means that it can be used by {@link com.mojang.serialization.Codec#dispatch} and as a part of other map codecs
@@ -0,0 +1,46 @@
+package cz.yorick.api.codec;
+
+import cz.yorick.api.codec.annotations.GenerateFieldsCodec;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Implemented by the classes which the simple-resources annotation processor generates
+ * for classes marked with {@link GenerateFieldsCodec}, should not be implemented manually
+ * */
+public interface GeneratedClassFields {
+    /**
+     * Appended to the binary name of the annotated class to get the name of the generated class
+     * */
+    String SUFFIX = "_ClassFields";
+
+    /**
+     * @return The serializable fields of the class including the fields of its parents, in the same order the reflection scan would return them
+     * */
+    List<FieldEntry> fields();
+
+    /**
+     * A single serializable field, the getter and setter are null if the field
+     * could not be accessed directly from the generated class (private or final fields)
+     * */
+    record FieldEntry(String id, String name, Class<?> declaringClass, Class<?> type, boolean required, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+        public static FieldEntry reflected(String id, String name, Class<?> declaringClass, Class<?> type, boolean required) {
+            return new FieldEntry(id, name, declaringClass, type, required, null, null);
+        }
+
+        /**
+         * Used for fields whose declaring class or type cannot be named from the generated class,
+         * the declaring class gets loaded by its binary name using the class loader of the generated class
+         * */
+        public static FieldEntry reflected(String id, String name, String declaringClassName, boolean required, Class<? extends GeneratedClassFields> generatedClass) {
+            try {
+                Class<?> declaringClass = Class.forName(declaringClassName, false, generatedClass.getClassLoader());
+                return reflected(id, name, declaringClass, declaringClass.getDeclaredField(name).getType(), required);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Generated field '" + name + "' does not exist in class '" + declaringClassName + "', try recompiling the class", e);
+            }
+        }
+    }
+}
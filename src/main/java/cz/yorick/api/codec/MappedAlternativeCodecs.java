@@ -12,6 +12,10 @@ import java.util.function.Function;
  * its type and is used for serializing, and any amount
  * of codecs for deserialization with a converter to the
  * firstly specified value
+ * <p>
+ * When constructing the codec directly, entries can be given a
+ * {@link MappedAlternativeCodec.Shape} so that only the entries
+ * matching the structure of the input get tried
  * */
 public interface MappedAlternativeCodecs {
     static <O, A> MappedAlternativeCodec<O> of(Codec<O> codec, Codec<A> alternative, Function<A, O> converter) {
@@ -0,0 +1,17 @@
+package cz.yorick.api.codec.annotations;
+
+import cz.yorick.api.codec.ClassFieldsCodec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to mark a class whose fields should be collected at compile time by the simple-resources annotation processor,
+ * {@link ClassFieldsCodec} then uses the generated class instead of scanning the fields using reflection
+ * */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GenerateFieldsCodec {
+}
@@ -1,33 +1,123 @@
 package cz.yorick.api.registry;
 
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Codec;
 import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.SimpleResources;
+import cz.yorick.network.RegistrySync;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.util.Identifier;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Disables registering values manually, but allows
- * reloading the registry with a map of new values
+ * reloading the registry with a map of new values.
+ * The values are stored in an immutable snapshot which gets replaced on reload,
+ * the inherited registry and keyRegistry maps stay empty, use the accessor methods instead
  * */
 public class SimpleDynamicRegistry<K, V> extends SimpleRegistry<K, V> {
+    //replaced as a whole on reload, so readers never see a partially reloaded registry
+    private volatile Snapshot<K, V> snapshot = Snapshot.empty();
     public SimpleDynamicRegistry(Identifier registryId, Codec<K> keyCodec) {
         super(registryId, keyCodec);
     }
 
     public void reload(Map<K, V> newValues) {
-        this.registry.clear();
-        this.keyRegistry.clear();
-        newValues.forEach(super::register);
+        //built off to the side, the current values stay readable until the new ones are complete
+        HashMap<V, K> keys = new HashMap<>();
+        ImmutableBiMap.Builder<K, V> builder = ImmutableBiMap.builderWithExpectedSize(newValues.size());
+        ImmutableList.Builder<V> byRawId = ImmutableList.builderWithExpectedSize(newValues.size());
+        Object2IntOpenHashMap<V> rawIds = new Object2IntOpenHashMap<>(newValues.size());
+        rawIds.defaultReturnValue(-1);
+        //the raw ids are assigned in the sorted order of the keys, so every side which has
+        //the same keys assigns the same raw ids, no matter what map the values came in
+        List<K> sortedKeys = newValues.keySet().stream().sorted(SimpleDynamicRegistry::compareKeys).toList();
+        K previousKey = null;
+        for (K key : sortedKeys) {
+            //distinct keys which compare equal would keep the order of the map, which can differ between sides
+            if(previousKey != null && compareKeys(previousKey, key) == 0) {
+                throw new IllegalArgumentException("Keys '" + previousKey + "' and '" + key + "' of registry " + getRegistryId() + " cannot be ordered, raw ids could not be assigned consistently");
+            }
+
+            previousKey = key;
+            V value = newValues.get(key);
+            if(keys.putIfAbsent(value, key) != null) {
+                throw new IllegalArgumentException("Duplicate value in registry " + getRegistryId() + " '" + value + "'");
+            }
+
+            builder.put(key, value);
+            rawIds.put(value, rawIds.size());
+            byRawId.add(value);
+        }
+
+        this.snapshot = new Snapshot<>(builder.buildOrThrow(), byRawId.build(), rawIds);
         SimpleResourcesCommon.LOGGER.info("Reloaded the registry " + getRegistryId());
     }
 
+    @Override
+    public List<K> getKeys() {
+        return this.snapshot.values().keySet().asList();
+    }
+
+    @Override
+    public List<V> getValues() {
+        return this.snapshot.values().values().asList();
+    }
+
+    @Override
+    public V getOrNull(K key) {
+        return this.snapshot.values().get(key);
+    }
+
+    @Override
+    public K getIdOrNull(V value) {
+        return this.snapshot.values().inverse().get(value);
+    }
+
+    /**
+     * Raw ids of a dynamic registry are assigned in the sorted order of the keys
+     * (natural order if the keys are comparable, otherwise their string form),
+     * so they are only valid until the next reload. Reloading fails if two keys compare equal
+     * */
+    @Override
+    public int getRawId(V value) {
+        return this.snapshot.rawIds().getInt(value);
+    }
+
+    @Override
+    public V get(int rawId) {
+        List<V> byRawId = this.snapshot.byRawId();
+        return rawId >= 0 && rawId < byRawId.size() ? byRawId.get(rawId) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> int compareKeys(K first, K second) {
+        if(first instanceof Comparable<?> comparable && first.getClass() == second.getClass()) {
+            return ((Comparable<K>) comparable).compareTo(second);
+        }
+
+        return String.valueOf(first).compareTo(String.valueOf(second));
+    }
+
     @Override
     public void register(K key, V value) {
         throw new UnsupportedOperationException("Cannot call .register() on a dynamic registry! Values can only be modified when reloading with the .reload() method!");
     }
 
+    //the raw id map is never modified after the snapshot gets published
+    private record Snapshot<K, V>(ImmutableBiMap<K, V> values, ImmutableList<V> byRawId, Object2IntMap<V> rawIds) {
+        private static <K, V> Snapshot<K, V> empty() {
+            Object2IntOpenHashMap<V> rawIds = new Object2IntOpenHashMap<>();
+            rawIds.defaultReturnValue(-1);
+            return new Snapshot<>(ImmutableBiMap.of(), ImmutableList.of(), rawIds);
+        }
+    }
+
     /**
      * Creates a data pack resource and wraps it in a dynamic registry.
      * Any time the resource gets reloaded, the registries values get updated
@@ -38,6 +128,17 @@ public class SimpleDynamicRegistry<K, V> extends SimpleRegistry<K, V> {
         return dynamicRegistry;
     }
 
+    /**
+     * Same as {@link SimpleDynamicRegistry#ofDatapackResource(Identifier, Codec, Identifier...)}, but the values also get sent
+     * to the clients when they join and after every data pack reload, so the registry can be used on both sides.
+     * Has to be called on both the server and the client
+     * */
+    public static <T> SimpleDynamicRegistry<Identifier, T> ofSyncedDatapackResource(Identifier id, Codec<T> codec, Identifier... dependencies) {
+        SimpleDynamicRegistry<Identifier, T> dynamicRegistry = ofDatapackResource(id, codec, dependencies);
+        RegistrySync.register(dynamicRegistry, codec);
+        return dynamicRegistry;
+    }
+
     /**
      * Creates a resource pack resource and wraps it in a dynamic registry.
      * Any time the resource gets reloaded, the registries values get updated
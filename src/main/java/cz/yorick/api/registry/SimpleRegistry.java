@@ -2,8 +2,15 @@ package cz.yorick.api.registry;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
 import net.minecraft.util.Identifier;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -13,10 +20,17 @@ import java.util.List;
  * the key codec on it
  * */
 public class SimpleRegistry<K, V> {
+    //only filled by register, subclasses which store their values differently (like the dynamic registry)
+    //leave them empty, so the accessor methods should be preferred
     protected final HashMap<K, V> registry = new HashMap<>();
     protected final HashMap<V, K> keyRegistry = new HashMap<>();
+    //raw ids are assigned in registration order
+    private final ArrayList<V> rawIdRegistry = new ArrayList<>();
+    private final Object2IntOpenHashMap<V> rawIds = new Object2IntOpenHashMap<>();
     private final Identifier registryId;
     private final Codec<V> codec;
+    private final Codec<V> rawIdCodec;
+    private final PacketCodec<ByteBuf, V> packetCodec;
     public SimpleRegistry(Identifier registryId, Codec<K> keyCodec) {
         this.registryId = registryId;
         this.codec = keyCodec.flatXmap(
@@ -35,6 +49,45 @@ public class SimpleRegistry<K, V> {
                     return DataResult.error(() -> "Invalid value for registry " + this.registryId + " '" + value + "'");
                 }
         );
+        this.rawIds.defaultReturnValue(-1);
+        this.rawIdCodec = Codec.INT.flatXmap(
+                rawId -> {
+                    V value = get(rawId);
+                    if(value != null) {
+                        return DataResult.success(value);
+                    }
+                    return DataResult.error(() -> "Invalid raw id for registry " + this.registryId + " '" + rawId + "'");
+                },
+                value -> {
+                    int rawId = getRawId(value);
+                    if(rawId != -1) {
+                        return DataResult.success(rawId);
+                    }
+                    return DataResult.error(() -> "Invalid value for registry " + this.registryId + " '" + value + "'");
+                }
+        );
+        this.packetCodec = new PacketCodec<>() {
+            @Override
+            public V decode(ByteBuf buf) {
+                int rawId = VarInts.read(buf);
+                V value = get(rawId);
+                if(value == null) {
+                    throw new DecoderException("Invalid raw id for registry " + SimpleRegistry.this.registryId + " '" + rawId + "'");
+                }
+
+                return value;
+            }
+
+            @Override
+            public void encode(ByteBuf buf, V value) {
+                int rawId = getRawId(value);
+                if(rawId == -1) {
+                    throw new EncoderException("Invalid value for registry " + SimpleRegistry.this.registryId + " '" + value + "'");
+                }
+
+                VarInts.write(buf, rawId);
+            }
+        };
     }
 
     public List<K> getKeys() {
@@ -57,6 +110,20 @@ public class SimpleRegistry<K, V> {
         return this.keyRegistry.get(value);
     }
 
+    /**
+     * @return The dense raw id of the value or -1 if the value is not registered
+     * */
+    public int getRawId(V value) {
+        return this.rawIds.getInt(value);
+    }
+
+    /**
+     * @return The value with the raw id or null if there is no such value
+     * */
+    public V get(int rawId) {
+        return rawId >= 0 && rawId < this.rawIdRegistry.size() ? this.rawIdRegistry.get(rawId) : null;
+    }
+
     public void register(K key, V value) {
         if(this.registry.containsKey(key)) {
             throw new IllegalArgumentException("Duplicate id in registry " + this.registryId + " '" + key + "'");
@@ -68,9 +135,27 @@ public class SimpleRegistry<K, V> {
 
         this.registry.put(key, value);
         this.keyRegistry.put(value, key);
+        this.rawIds.put(value, this.rawIdRegistry.size());
+        this.rawIdRegistry.add(value);
     }
 
     public Codec<V> getCodec() {
         return this.codec;
     }
+
+    /**
+     * A codec which serializes the values as their raw ids, the raw ids are only stable
+     * as long as the registration order does not change, so they should not be persisted
+     * */
+    public Codec<V> getRawIdCodec() {
+        return this.rawIdCodec;
+    }
+
+    /**
+     * Writes the values as var int raw ids, both sides have to have
+     * the same values registered in the same order
+     * */
+    public PacketCodec<ByteBuf, V> getPacketCodec() {
+        return this.packetCodec;
+    }
 }
@@ -1,5 +1,9 @@
 package cz.yorick.api.resources;
 
+import cz.yorick.resources.type.DerivedResource;
+
+import java.util.function.Function;
+
 /**
  * Since the actual resource class instance changes after every reload,
  * this class can be used to always retrieve the current instance
@@ -11,4 +15,15 @@ public interface ResourceKey<T> {
      * @return The current resource class instance
      * */
     T getValue();
+
+    /**
+     * Creates a key for a view computed from the value of this key, something like a reverse lookup or
+     * a grouping of the values. The view gets computed when it is first requested and is then cached until
+     * this resource gets reloaded. Derived keys can be derived further
+     * @param function Computes the view from the current value, should not modify the value
+     * @return The key used to access the current view
+     * */
+    default <R> ResourceKey<R> derive(Function<T, R> function) {
+        return new DerivedResource<>(this, function);
+    }
 }
@@ -2,22 +2,22 @@ package cz.yorick.codec;
 
 import com.google.common.collect.ImmutableMap;
 import com.mojang.datafixers.util.Pair;
-import com.mojang.serialization.Codec;
-import com.mojang.serialization.DataResult;
-import com.mojang.serialization.MapCodec;
+import com.mojang.datafixers.util.Unit;
+import com.mojang.serialization.*;
 import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.codec.annotations.OptionalField;
 import cz.yorick.api.codec.*;
 import cz.yorick.api.codec.annotations.FieldId;
+import cz.yorick.api.codec.annotations.GenerateFieldsCodec;
 import cz.yorick.api.codec.annotations.Ignore;
 import cz.yorick.api.codec.annotations.IncludeParent;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.entity.EntityType;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.dynamic.Codecs;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -25,6 +25,7 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ClassFieldsReflectionCodec<C, T extends C> {
     private static final ImmutableMap<Class<?>, Codec<?>> DEFAULT_CODECS = ImmutableMap.<Class<?>, Codec<?>>builder()
@@ -54,6 +55,11 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
     private final Map<Class<?>, Codec<?>> extraCodecs;
     private final Map<String, Codec<?>> codecOverwrites;
     private final LinkedHashMap<String, SerializableField> classFields;
+    private final String[] fieldIds;
+    private final SerializableField[] fields;
+    private final Object2IntOpenHashMap<String> fieldIndexes = new Object2IntOpenHashMap<>();
+    //one bit per field in the same order as the fields array, set if the field is required
+    private final long[] requiredMask;
     private final Function<T, DataResult<T>> postProcessor;
     ClassFieldsReflectionCodec(Class<?> clazz, Supplier<T> defaultFactory, Map<Class<?>, Codec<?>> extraCodecs, Map<String, Codec<?>> codecOverwrites, Function<T, DataResult<T>> postProcessor) {
         if(clazz.isRecord()) {
@@ -63,7 +69,18 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
         this.defaultFactory = defaultFactory;
         this.extraCodecs = ImmutableMap.copyOf(extraCodecs);
         this.codecOverwrites = ImmutableMap.copyOf(codecOverwrites);
-        this.classFields = getSerializableFields(clazz);
+        GeneratedClassFields generatedFields = getGeneratedFields(clazz);
+        this.classFields = generatedFields != null ? getGeneratedSerializableFields(clazz, generatedFields) : getSerializableFields(clazz);
+        this.fieldIds = this.classFields.keySet().toArray(String[]::new);
+        this.fields = this.classFields.values().toArray(SerializableField[]::new);
+        this.requiredMask = new long[(this.fields.length + 63) >> 6];
+        this.fieldIndexes.defaultReturnValue(-1);
+        for (int i = 0; i < this.fields.length; i++) {
+            this.fieldIndexes.put(this.fieldIds[i], i);
+            if(this.fields[i].required()) {
+                this.requiredMask[i >> 6] |= 1L << i;
+            }
+        }
         this.postProcessor = postProcessor;
     }
 
@@ -72,11 +89,10 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
         if(clazz.getAnnotation(IncludeParent.class) != null) {
             getSerializableFields(clazz.getSuperclass()).forEach((id, field) -> {
                 if (allFields.containsKey(id)) {
-                    Field newField = field.field();
-                    Field prevField = allFields.get(id).field();
+                    SerializableField prevField = allFields.get(id);
                     throw new IllegalArgumentException("Duplicate field id '" + id + "' found!" +
-                            " Field '" + newField.getName() + "' declared by class '" + newField.getDeclaringClass().getName() + "' has the same id as the previously specified" +
-                            " field '" + prevField.getName() + "' declared by class '" + prevField.getDeclaringClass().getName() + "', either change one of the fields names or use the @FieldId or @Ignore annotation");
+                            " Field '" + field.name() + "' declared by class '" + field.declaringClass().getName() + "' has the same id as the previously specified" +
+                            " field '" + prevField.name() + "' declared by class '" + prevField.declaringClass().getName() + "', either change one of the fields names or use the @FieldId or @Ignore annotation");
                 }
 
                 allFields.put(id, field);
@@ -93,10 +109,49 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
                 .map(this::getFieldEntry)
                 .collect(Collectors.toMap(Pair::getFirst, Pair::getSecond, (field1, field2) -> {
                     throw new RuntimeException("Fields with matching ids found in class '" + clazz.getName() + "', " +
-                            "field '" + field1.field().getName() + "' and '" + field2.field().getName() + "' have the same id!");
+                            "field '" + field1.name() + "' and '" + field2.name() + "' have the same id!");
                 }, LinkedHashMap::new));
     }
 
+    private static GeneratedClassFields getGeneratedFields(Class<?> clazz) {
+        if(clazz.getAnnotation(GenerateFieldsCodec.class) == null) {
+            return null;
+        }
+
+        try {
+            Class<?> generatedClass = Class.forName(clazz.getName() + GeneratedClassFields.SUFFIX, true, clazz.getClassLoader());
+            return (GeneratedClassFields) generatedClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            SimpleResourcesCommon.LOGGER.warn("Class '" + clazz.getName() + "' is marked with @GenerateFieldsCodec, but no generated class was found, make sure the annotation processor is registered - falling back to reflection");
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create the generated fields of class '" + clazz.getName() + "'", e);
+        }
+    }
+
+    private LinkedHashMap<String, SerializableField> getGeneratedSerializableFields(Class<?> clazz, GeneratedClassFields generatedFields) {
+        LinkedHashMap<String, SerializableField> allFields = new LinkedHashMap<>();
+        for (GeneratedClassFields.FieldEntry entry : generatedFields.fields()) {
+            FieldAccessor accessor = entry.getter() != null ? new FieldAccessor.FunctionAccessor(entry.getter(), entry.setter()) : new FieldAccessor.ReflectionAccessor(getDeclaredField(entry));
+            //the processor already rejects duplicate ids, this only guards against stale generated classes
+            if(allFields.put(entry.id(), createField(entry.id(), entry.name(), entry.declaringClass(), entry.type(), entry.required(), accessor)) != null) {
+                throw new IllegalArgumentException("Duplicate field id '" + entry.id() + "' in the generated fields of class '" + clazz.getName() + "', try recompiling the class");
+            }
+        }
+
+        return allFields;
+    }
+
+    private static Field getDeclaredField(GeneratedClassFields.FieldEntry entry) {
+        try {
+            Field field = entry.declaringClass().getDeclaredField(entry.name());
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Generated field '" + entry.name() + "' does not exist in class '" + entry.declaringClass().getName() + "', try recompiling the class", e);
+        }
+    }
+
     private boolean shouldSerialize(Field field) {
         return !Modifier.isStatic(field.getModifiers()) && field.getAnnotation(Ignore.class) == null;
     }
@@ -104,29 +159,31 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
     private Pair<String, SerializableField> getFieldEntry(Field field) {
         String fieldId = getFieldId(field);
         boolean required = field.getAnnotation(OptionalField.class) == null;
+        return Pair.of(fieldId, createField(fieldId, field.getName(), field.getDeclaringClass(), field.getType(), required, new FieldAccessor.ReflectionAccessor(field)));
+    }
 
+    private SerializableField createField(String fieldId, String name, Class<?> declaringClass, Class<?> fieldClass, boolean required, FieldAccessor accessor) {
         Codec<?> overwriteCodec = this.codecOverwrites.get(fieldId);
         if(overwriteCodec != null) {
-            return Pair.of(fieldId, new SerializableField(field, overwriteCodec, required));
+            return new SerializableField(name, declaringClass, accessor, overwriteCodec, required);
         }
 
-        Class<?> fieldClass = field.getType();
         Codec<?> codec = this.extraCodecs.get(fieldClass);
         if(codec != null) {
-            return Pair.of(fieldId, new SerializableField(field, codec, required));
+            return new SerializableField(name, declaringClass, accessor, codec, required);
         }
 
         Codec<?> defaultCodec = DEFAULT_CODECS.get(fieldClass);
         if(defaultCodec != null) {
-            return Pair.of(fieldId, new SerializableField(field, defaultCodec, required));
+            return new SerializableField(name, declaringClass, accessor, defaultCodec, required);
         }
 
         //try to create a generic enum codec
         if(fieldClass.isEnum()) {
-            return Pair.of(fieldId, new SerializableField(field, EnumCodec.of(fieldClass.asSubclass(Enum.class)), required));
+            return new SerializableField(name, declaringClass, accessor, EnumCodec.of(fieldClass.asSubclass(Enum.class)), required);
         }
 
-        throw new IllegalArgumentException("Could not get codec for field '" + field.getName() + "' no codec registered for class " + fieldClass.getName() + " or field id '" + fieldId + "'");
+        throw new IllegalArgumentException("Could not get codec for field '" + name + "' no codec registered for class " + fieldClass.getName() + " or field id '" + fieldId + "'");
     }
 
     private String getFieldId(Field field) {
@@ -142,85 +199,121 @@ public class ClassFieldsReflectionCodec<C, T extends C> {
         return fieldId.id();
     }
 
-    private Codec<?> getFieldCodec(String fieldName) {
-        SerializableField field = this.classFields.get(fieldName);
-        if(field == null) {
-            throw new IllegalArgumentException("Attempted to get a codec for an unknown field '" + fieldName + "' - this should be filtered out by DelegatedDispatchedMapCodec and never happen!");
-        }
+    public static<C, T extends C> Codec<T> of(Class<C> clazz, Supplier<T> defaultFactory, Map<Class<?>, Codec<?>> extraCodecs, Map<String, Codec<?>> codecOverwrites, Function<T, DataResult<T>> postProcessor) {
+        return ofMap(clazz, defaultFactory, extraCodecs, codecOverwrites, postProcessor).codec();
+    }
 
-        return field.codec();
+    public static<C, T extends C> MapCodec<T> ofMap(Class<C> clazz, Supplier<T> defaultFactory, Map<Class<?>, Codec<?>> extraCodecs, Map<String, Codec<?>> codecOverwrites, Function<T, DataResult<T>> postProcessor) {
+        return new ClassFieldsReflectionCodec<C, T>(clazz, defaultFactory, extraCodecs, codecOverwrites, postProcessor).new FieldsMapCodec();
     }
 
-    private DataResult<T> createWithValues(Map<String, Object> values) {
-        //get the missing keys by removing the received keys
-        //from the field keys.
-        //key set reflects its changes into the map so get a copy
-        Set<String> missingKeys = new HashSet<>(this.classFields.keySet());
-        missingKeys.removeAll(values.keySet());
-        for (String missingKey : missingKeys) {
-            //if the key is required, throw an exception
-            if(this.classFields.get(missingKey).required()) {
-                return DataResult.error(() -> "Missing a required key: '" + missingKey + "'");
-            }
+    /**
+     * Reads the entries straight into the fields of a new instance and writes
+     * the fields straight into the record builder, without any intermediate map.
+     * If the input contains a key more than once, the last value is kept and the
+     * result is a partial error naming the duplicate keys
+     * */
+    private class FieldsMapCodec extends MapCodec<T> implements KnownKeysMapCodec {
+        @Override
+        public <O> Stream<O> keys(DynamicOps<O> ops) {
+            return Arrays.stream(ClassFieldsReflectionCodec.this.fieldIds).map(ops::createString);
         }
 
-        T instance = this.defaultFactory.get();
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            SerializableField serializableField = this.classFields.get(entry.getKey());
-            if(serializableField == null) {
-                return DataResult.error(() -> "Key '" + entry.getKey() + "' does not represent a valid field!");
-            }
+        @Override
+        @SuppressWarnings("unchecked")
+        public <O> DataResult<T> decode(DynamicOps<O> ops, MapLike<O> input) {
+            T instance = ClassFieldsReflectionCodec.this.defaultFactory.get();
+            long[] parsedFields = new long[ClassFieldsReflectionCodec.this.requiredMask.length];
+            //only created if there are duplicates
+            Set<String> duplicateKeys = null;
+            //errors of all the fields are collected, so every invalid field gets reported at once
+            DataResult<Unit> errors = DataResult.success(Unit.INSTANCE);
+            Iterator<Pair<O, O>> entries = input.entries().iterator();
+            while (entries.hasNext()) {
+                Pair<O, O> entry = entries.next();
+                String key = ops.getStringValue(entry.getFirst()).result().orElse(null);
+                int index = key != null ? ClassFieldsReflectionCodec.this.fieldIndexes.getInt(key) : -1;
+                //keys which do not represent a field are ignored
+                if(index == -1) {
+                    continue;
+                }
 
-            serializableField.set(instance, entry.getValue());
-        }
+                SerializableField field = ClassFieldsReflectionCodec.this.fields[index];
+                DataResult<Object> value = ((Codec<Object>)field.codec()).parse(ops, entry.getSecond());
+                //a partial value is still set, otherwise the field keeps its default
+                value.resultOrPartial().ifPresent(parsed -> field.set(instance, parsed));
+                errors = errors.apply2stable((unit, parsed) -> unit, value.mapError(message -> "Failed to parse the field '" + key + "': " + message));
+                if((parsedFields[index >> 6] & (1L << index)) != 0) {
+                    if(duplicateKeys == null) {
+                        duplicateKeys = new LinkedHashSet<>();
+                    }
+
+                    duplicateKeys.add(key);
+                }
 
-        return this.postProcessor.apply(instance);
-    }
+                parsedFields[index >> 6] |= 1L << index;
+            }
 
-    private DataResult<Map<String, Object>> getValues(T instance) {
-        LinkedHashMap<String, Object> values = new LinkedHashMap<>();
-        for (Map.Entry<String, SerializableField> entry : this.classFields.entrySet()) {
-            DataResult<Object> value = entry.getValue().get(instance);
-            if(value.isError()) {
-                return DataResult.error(() -> "Cannot serialize the field '" + entry.getKey() + "' - check the log for details");
+            for (int i = 0; i < parsedFields.length; i++) {
+                long missingFields = ClassFieldsReflectionCodec.this.requiredMask[i] & ~parsedFields[i];
+                while (missingFields != 0) {
+                    String missingKey = ClassFieldsReflectionCodec.this.fieldIds[(i << 6) + Long.numberOfTrailingZeros(missingFields)];
+                    errors = errors.apply2stable((unit, missing) -> unit, DataResult.error(() -> "Missing a required key: '" + missingKey + "'"));
+                    missingFields &= missingFields - 1;
+                }
             }
 
-            //if the value is null, don't add it
-            if(value.getOrThrow() == null) {
-                continue;
+            //the post processor only gets the instance once all the fields are valid
+            if(errors.isError()) {
+                return errors.map(unit -> instance).setPartial(instance);
             }
 
-            values.put(entry.getKey(), value.getOrThrow());
-        }
+            DataResult<T> result = ClassFieldsReflectionCodec.this.postProcessor.apply(instance);
+            if(duplicateKeys != null) {
+                Set<String> duplicates = duplicateKeys;
+                return result.flatMap(value -> DataResult.error(() -> "Duplicate keys: " + duplicates, value));
+            }
 
-        return DataResult.success(values);
-    }
+            return result;
+        }
 
-    public static<C, T extends C> Codec<T> of(Class<C> clazz, Supplier<T> defaultFactory, Map<Class<?>, Codec<?>> extraCodecs, Map<String, Codec<?>> codecOverwrites, Function<T, DataResult<T>> postProcessor) {
-        return ofMap(clazz, defaultFactory, extraCodecs, codecOverwrites, postProcessor).codec();
-    }
+        @Override
+        @SuppressWarnings("unchecked")
+        public <O> RecordBuilder<O> encode(T input, DynamicOps<O> ops, RecordBuilder<O> prefix) {
+            for (int i = 0; i < ClassFieldsReflectionCodec.this.fields.length; i++) {
+                String fieldId = ClassFieldsReflectionCodec.this.fieldIds[i];
+                SerializableField field = ClassFieldsReflectionCodec.this.fields[i];
+                Object value;
+                try {
+                    value = field.accessor().get(input);
+                } catch (Throwable e) {
+                    SimpleResourcesCommon.LOGGER.error("Could not retrieve the value of config field '" + field.name() + "'", e);
+                    return prefix.withErrorsFrom(DataResult.error(() -> "Cannot serialize the field '" + fieldId + "' - check the log for details"));
+                }
 
-    public static<C, T extends C> MapCodec<T> ofMap(Class<C> clazz, Supplier<T> defaultFactory, Map<Class<?>, Codec<?>> extraCodecs, Map<String, Codec<?>> codecOverwrites, Function<T, DataResult<T>> postProcessor) {
-        ClassFieldsReflectionCodec<C, T> fieldsCodec = new ClassFieldsReflectionCodec<>(clazz, defaultFactory, extraCodecs, codecOverwrites, postProcessor);
-        MapCodec<Map<String, Object>> objects = new DelegatedDispatchedMapCodec<>(fieldsCodec.classFields.keySet(), Codecs.NON_EMPTY_STRING, fieldsCodec::getFieldCodec);
-        return objects.flatXmap(fieldsCodec::createWithValues, fieldsCodec::getValues);
-    }
+                //if the value is null, don't add it
+                if(value == null) {
+                    continue;
+                }
 
-    private record SerializableField(Field field, Codec<?> codec, boolean required) {
-        private DataResult<Object> get(Object instance) {
-            try {
-                return DataResult.success(this.field.get(instance));
-            } catch (IllegalAccessException e) {
-                SimpleResourcesCommon.LOGGER.error("Could not retrieve the value of config field '" + this.field.getName() + "'", e);
-                return DataResult.error(() -> "Could not retrieve the value of config field '" + this.field.getName() + "' - Check the log for more details");
+                prefix.add(fieldId, ((Codec<Object>)field.codec()).encodeStart(ops, value));
             }
+
+            return prefix;
+        }
+
+        @Override
+        public String toString() {
+            return "ClassFieldsCodec" + ClassFieldsReflectionCodec.this.classFields.keySet();
         }
+    }
 
+    private record SerializableField(String name, Class<?> declaringClass, FieldAccessor accessor, Codec<?> codec, boolean required) {
         private void set(Object instance, Object value) {
             try {
-                this.field.set(instance, value);
-            } catch (Exception e) {
-                SimpleResourcesCommon.LOGGER.error("Could not assign value to the config field '" + this.field.getName() + "'", e);
+                this.accessor.set(instance, value);
+            } catch (Throwable e) {
+                SimpleResourcesCommon.LOGGER.error("Could not assign value to the config field '" + this.name + "'", e);
             }
         }
     }
@@ -1,19 +1,27 @@
 package cz.yorick.codec;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.mojang.datafixers.util.Pair;
+import com.mojang.datafixers.util.Unit;
 import com.mojang.serialization.*;
 
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-public class DelegatedDispatchedMapCodec<K, V> extends MapCodec<Map<K, V>> {
+public class DelegatedDispatchedMapCodec<K, V> extends MapCodec<Map<K, V>> implements KnownKeysMapCodec {
     private final Set<String> keys;
-    private final Codec<Map<K, V>> codec;
+    private final Codec<K> keyCodec;
+    private final Function<K, Codec<? extends V>> keyToCodec;
     public DelegatedDispatchedMapCodec(Set<String> keys, Codec<K> keyCodec, Function<K, Codec<? extends V>> keyToCodec) {
-        this.keys = keys;
-        this.codec = Codec.dispatchedMap(keyCodec, keyToCodec);
+        //copied into a hash set so filtering the input is a constant time lookup
+        this.keys = ImmutableSet.copyOf(keys);
+        this.keyCodec = keyCodec;
+        this.keyToCodec = keyToCodec;
     }
 
     @Override
@@ -23,27 +31,41 @@ public class DelegatedDispatchedMapCodec<K, V> extends MapCodec<Map<K, V>> {
 
     @Override
     public <T> DataResult<Map<K, V>> decode(DynamicOps<T> ops, MapLike<T> input) {
-        List<T> validKeys = keys(ops).toList();
-        //get a map with only the valid keys
-        T normalInput = ops.createMap(input.entries().filter(pair -> validKeys.contains(pair.getFirst())));
-        return this.codec.parse(ops, normalInput);
+        //same behaviour as Codec.dispatchedMap, but entries with unknown keys are skipped
+        //while iterating instead of being filtered into a new map first
+        LinkedHashMap<K, V> read = new LinkedHashMap<>();
+        DataResult<Unit> result = DataResult.success(Unit.INSTANCE);
+        Iterator<Pair<T, T>> entries = input.entries().iterator();
+        while (entries.hasNext()) {
+            Pair<T, T> entry = entries.next();
+            String stringKey = ops.getStringValue(entry.getFirst()).result().orElse(null);
+            if(stringKey == null || !this.keys.contains(stringKey)) {
+                continue;
+            }
+
+            DataResult<K> key = this.keyCodec.parse(ops, entry.getFirst());
+            DataResult<V> value = key.flatMap(parsedKey -> this.keyToCodec.apply(parsedKey).parse(ops, entry.getSecond()).<V>map(parsedValue -> parsedValue));
+            DataResult<Pair<K, V>> entryResult = key.apply2stable(Pair::of, value);
+            Pair<K, V> parsedEntry = entryResult.resultOrPartial().orElse(null);
+            if(parsedEntry != null && read.putIfAbsent(parsedEntry.getFirst(), parsedEntry.getSecond()) != null) {
+                result = result.apply2stable((unit, duplicate) -> unit, DataResult.error(() -> "Duplicate entry for key: '" + parsedEntry.getFirst() + "'"));
+            }
+
+            result = result.apply2stable((unit, parsed) -> unit, entryResult);
+        }
+
+        Map<K, V> elements = ImmutableMap.copyOf(read);
+        return result.map(unit -> elements).setPartial(elements);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> RecordBuilder<T> encode(Map<K, V> input, DynamicOps<T> ops, RecordBuilder<T> prefix) {
-        DataResult<T> result = this.codec.encodeStart(ops, input);
-        if(result.isError()) {
-            prefix.withErrorsFrom(result);
-            return prefix;
-        }
-
-        DataResult<MapLike<T>> mapLike = ops.getMap(result.getOrThrow());
-        if(mapLike.isError()) {
-            prefix.withErrorsFrom(mapLike);
-            return prefix;
+        for (Map.Entry<K, V> entry : input.entrySet()) {
+            Codec<V> valueCodec = (Codec<V>) this.keyToCodec.apply(entry.getKey());
+            prefix.add(this.keyCodec.encodeStart(ops, entry.getKey()), valueCodec.encodeStart(ops, entry.getValue()));
         }
 
-        mapLike.getOrThrow().entries().forEach(pair -> prefix.add(pair.getFirst(), pair.getSecond()));
         return prefix;
     }
 }
@@ -1,37 +1,79 @@
 package cz.yorick.codec;
 
+import com.google.common.collect.ImmutableMap;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import net.minecraft.util.dynamic.Codecs;
 
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class EnumCodec {
     public static <E extends Enum<E>> Codec<E> of(Class<E> enumClass) {
-        String validValues = "[" + String.join(", ", Arrays.stream(enumClass.getEnumConstants()).map(Enum::name).toList()) + "]";
+        E[] constants = enumClass.getEnumConstants();
+        Map<String, E> byName = Arrays.stream(constants).collect(ImmutableMap.toImmutableMap(Enum::name, value -> value));
+        String validValues = "[" + String.join(", ", Arrays.stream(constants).map(Enum::name).toList()) + "]";
         return Codecs.NON_EMPTY_STRING.comapFlatMap(
                 string -> {
-                    try {
-                        return DataResult.success(Enum.valueOf(enumClass, string));
-                    } catch (Exception e) {
-                        return DataResult.error(() -> "The id '" + string + "' does not represent a valid value, valid values: " + validValues);
+                    E value = byName.get(string);
+                    if(value != null) {
+                        return DataResult.success(value);
                     }
+
+                    return DataResult.error(() -> "The id '" + string + "' does not represent a valid value, valid values: " + validValues);
                 },
                 Enum::name
         );
     }
 
     public static <E extends Enum<E>> Codec<E> caseConverting(Class<E> enumClass) {
-        String validValues = "[" + String.join(", ", Arrays.stream(enumClass.getEnumConstants()).map(value -> value.name().toLowerCase()).toList()) + "]";
+        E[] constants = enumClass.getEnumConstants();
+        //indexed by ordinal
+        String[] serializedNames = Arrays.stream(constants).map(value -> value.name().toLowerCase(Locale.ROOT)).toArray(String[]::new);
+        //the serialized and the declared names are looked up directly, any other casing falls back to a case-insensitive lookup
+        ImmutableMap.Builder<String, E> exactBuilder = ImmutableMap.builder();
+        TreeMap<String, E> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (E constant : constants) {
+            exactBuilder.put(serializedNames[constant.ordinal()], constant);
+            if(!constant.name().equals(serializedNames[constant.ordinal()])) {
+                exactBuilder.put(constant.name(), constant);
+            }
+
+            caseInsensitive.putIfAbsent(constant.name(), constant);
+        }
+
+        Map<String, E> exact = exactBuilder.buildKeepingLast();
+        String validValues = "[" + String.join(", ", serializedNames) + "]";
         return Codecs.NON_EMPTY_STRING.comapFlatMap(
                 string -> {
-                    try {
-                        return DataResult.success(Enum.valueOf(enumClass, string.toUpperCase()));
-                    } catch (Exception e) {
-                        return DataResult.error(() -> "The id '" + string.toUpperCase() + "' does not represent a valid value, valid values: " + validValues);
+                    E value = exact.get(string);
+                    if(value == null) {
+                        value = caseInsensitive.get(string);
+                    }
+
+                    if(value != null) {
+                        return DataResult.success(value);
+                    }
+
+                    return DataResult.error(() -> "The id '" + string.toUpperCase(Locale.ROOT) + "' does not represent a valid value, valid values: " + validValues);
+                },
+                value -> serializedNames[value.ordinal()]
+        );
+    }
+
+    public static <E extends Enum<E>> Codec<E> ordinal(Class<E> enumClass) {
+        E[] constants = enumClass.getEnumConstants();
+        return Codec.INT.comapFlatMap(
+                ordinal -> {
+                    if(ordinal >= 0 && ordinal < constants.length) {
+                        return DataResult.success(constants[ordinal]);
                     }
+
+                    return DataResult.error(() -> "The ordinal " + ordinal + " does not represent a valid value of " + enumClass.getSimpleName() + ", valid values: [0, " + (constants.length - 1) + "]");
                 },
-                value -> value.name().toLowerCase()
+                Enum::ordinal
         );
     }
 }
@@ -0,0 +1,38 @@
+package cz.yorick.codec;
+
+import java.lang.reflect.Field;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes the value of a single field, either through reflection
+ * or through the accessors generated by the annotation processor
+ * */
+public interface FieldAccessor {
+    Object get(Object instance) throws Throwable;
+    void set(Object instance, Object value) throws Throwable;
+
+    record FunctionAccessor(Function<Object, Object> getter, BiConsumer<Object, Object> setter) implements FieldAccessor {
+        @Override
+        public Object get(Object instance) {
+            return this.getter.apply(instance);
+        }
+
+        @Override
+        public void set(Object instance, Object value) {
+            this.setter.accept(instance, value);
+        }
+    }
+
+    record ReflectionAccessor(Field field) implements FieldAccessor {
+        @Override
+        public Object get(Object instance) throws IllegalAccessException {
+            return this.field.get(instance);
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws IllegalAccessException {
+            this.field.set(instance, value);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package cz.yorick.codec;
+
+/**
+ * Implemented by map codecs which only read the entries returned by
+ * {@link com.mojang.serialization.MapCodec#keys(com.mojang.serialization.DynamicOps)}
+ * and ignore any other entries, so readers can skip the other entries without building them
+ * */
+public interface KnownKeysMapCodec {
+}
@@ -4,6 +4,8 @@ import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.MapLike;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,15 +26,31 @@ public class MappedAlternativeCodec<O> implements Codec<O> {
 
     @Override
     public <T> DataResult<Pair<O, T>> decode(DynamicOps<T> ops, T input) {
-        List<String> errors = new ArrayList<>();
+        //only classified if an entry declares a shape
+        ClassifiedInput<T> classifiedInput = null;
+        List<DataResult.Error<Pair<O, T>>> errors = new ArrayList<>();
         for (Entry<O, ?> entry : this.options) {
+            if(entry.shape() != null) {
+                if(classifiedInput == null) {
+                    classifiedInput = ClassifiedInput.classify(ops, input);
+                }
+
+                if(!entry.shape().matches(classifiedInput)) {
+                    continue;
+                }
+            }
+
             DataResult<Pair<O, T>> result = entry.parse(ops, input);
-            if(result.ifError(error -> errors.add(error.message())).isSuccess()) {
-                return result;
+            if(result instanceof DataResult.Error<Pair<O, T>> error) {
+                errors.add(error);
+                continue;
             }
+
+            return result;
         }
 
-        return DataResult.error(() -> "All possible options failed: " + String.join(" | ", errors));
+        //the messages only get built if something asks for them
+        return DataResult.error(() -> errors.isEmpty() ? "No option accepts the input: " + input : "All possible options failed: " + String.join(" | ", errors.stream().map(DataResult.Error::message).toList()));
     }
 
     @Override
@@ -40,9 +58,85 @@ public class MappedAlternativeCodec<O> implements Codec<O> {
         return this.decoderCodec.encode(input, ops, prefix);
     }
 
-    public record Entry<O, A>(Codec<A> codec, Function<A, O> converter) {
+    /**
+     * @param shape If not null, the entry only gets tried for inputs matching the shape, entries
+     *              without a shape are tried for any input
+     * */
+    public record Entry<O, A>(Codec<A> codec, Function<A, O> converter, @Nullable Shape shape) {
+        public Entry(Codec<A> codec, Function<A, O> converter) {
+            this(codec, converter, null);
+        }
+
+        public Entry<O, A> withShape(Shape shape) {
+            return new Entry<>(this.codec, this.converter, shape);
+        }
+
         public <T> DataResult<Pair<O, T>> parse(DynamicOps<T> ops, T input) {
             return this.codec.decode(ops, input).map(pair -> pair.mapFirst(this.converter));
         }
     }
+
+    /**
+     * Describes the structure of the input an entry accepts, the input gets classified
+     * once per decode, so entries which cannot accept it are skipped without being parsed
+     * */
+    public record Shape(Kind kind, List<String> requiredKeys) {
+        public static final Shape STRING = new Shape(Kind.STRING, List.of());
+        //booleans are also accepted by number shapes since most ops can read them as numbers
+        public static final Shape NUMBER = new Shape(Kind.NUMBER, List.of());
+        public static final Shape LIST = new Shape(Kind.LIST, List.of());
+        public static final Shape MAP = new Shape(Kind.MAP, List.of());
+
+        /**
+         * A map which has to contain all the specified keys
+         * */
+        public static Shape mapWithKeys(String... keys) {
+            return new Shape(Kind.MAP, List.of(keys));
+        }
+
+        private <T> boolean matches(ClassifiedInput<T> input) {
+            if(input.kind() != this.kind) {
+                return false;
+            }
+
+            for (String key : this.requiredKeys) {
+                if(input.map().get(key) == null) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public enum Kind {
+            STRING,
+            NUMBER,
+            LIST,
+            MAP,
+            OTHER
+        }
+    }
+
+    private record ClassifiedInput<T>(Shape.Kind kind, @Nullable MapLike<T> map) {
+        private static <T> ClassifiedInput<T> classify(DynamicOps<T> ops, T input) {
+            DataResult<MapLike<T>> map = ops.getMap(input);
+            if(map.isSuccess()) {
+                return new ClassifiedInput<>(Shape.Kind.MAP, map.getOrThrow());
+            }
+
+            if(ops.getStream(input).isSuccess()) {
+                return new ClassifiedInput<>(Shape.Kind.LIST, null);
+            }
+
+            if(ops.getStringValue(input).isSuccess()) {
+                return new ClassifiedInput<>(Shape.Kind.STRING, null);
+            }
+
+            if(ops.getNumberValue(input).isSuccess()) {
+                return new ClassifiedInput<>(Shape.Kind.NUMBER, null);
+            }
+
+            return new ClassifiedInput<>(Shape.Kind.OTHER, null);
+        }
+    }
 }
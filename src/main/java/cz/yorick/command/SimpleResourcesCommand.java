@@ -14,6 +14,7 @@ import cz.yorick.resources.ErrorUtil;
 import cz.yorick.resources.ResourceParseException;
 import cz.yorick.resources.Util;
 import cz.yorick.resources.loader.CodecResourceReadWriter;
+import cz.yorick.resources.loader.DirectoryCache;
 import cz.yorick.resources.type.SimpleReloadableResource;
 import cz.yorick.resources.type.SimpleResource;
 import net.minecraft.command.CommandSource;
@@ -23,9 +24,9 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
@@ -192,13 +193,6 @@ public abstract class SimpleResourcesCommand<S extends CommandSource> {
                 return 1;
             }
 
-            if (!destination.exists()) {
-                if (!destination.createNewFile()) {
-                    sendError(source, "Failed to create file" + original.getName());
-                    return 0;
-                }
-            }
-
             String originalExtension = Util.getFileExtension(original.getName());
             CodecResourceReadWriter.DynamicOpsParser<?> originalParser = CodecResourceReadWriter.getParser(originalExtension);
             if (originalParser == null) {
@@ -206,13 +200,13 @@ public abstract class SimpleResourcesCommand<S extends CommandSource> {
                 return 0;
             }
 
-            FileReader reader = new FileReader(original);
-            FileWriter writer = new FileWriter(destination);
-            originalParser.convertTo(requiredFormatParser, reader, writer);
-            reader.close();
-            writer.close();
+            //the converted file only replaces the destination once it is completely written
+            try (Reader reader = Files.newBufferedReader(original.toPath(), StandardCharsets.UTF_8)) {
+                Util.writeAtomically(destination.toPath(), writer -> originalParser.convertTo(requiredFormatParser, reader, writer));
+            }
             sendSuccess(source, "File " + original.getName() + " converted to " + destination.getName());
             Files.delete(original.toPath());
+            DirectoryCache.invalidate(original.toPath().getParent());
             return 1;
         } catch (Exception e) {
             ErrorUtil.sendStackTrace(new ResourceParseException("Error while converting the file " + original.getName(), e), message -> sendError(source, message));
@@ -3,11 +3,13 @@ package cz.yorick.mixin;
 import com.google.gson.JsonElement;
 import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
 import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import com.mojang.datafixers.util.Either;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DynamicOps;
 import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.ResourceUtil;
 import cz.yorick.resources.ErrorUtil;
+import cz.yorick.resources.Util;
 import cz.yorick.resources.loader.CodecResourceReadWriter;
 import net.minecraft.registry.Registry;
 import net.minecraft.registry.RegistryKey;
@@ -15,7 +17,6 @@ import net.minecraft.registry.RegistryKeys;
 import net.minecraft.registry.RegistryOps;
 import net.minecraft.resource.JsonDataLoader;
 import net.minecraft.resource.Resource;
-import net.minecraft.resource.ResourceFinder;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.util.Identifier;
 import org.slf4j.Logger;
@@ -24,33 +25,68 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.Map;
+import java.io.Reader;
+import java.util.*;
 
 @Mixin(JsonDataLoader.class)
 public class JsonDataLoaderMixin {
     @Inject(method = "load(Lnet/minecraft/resource/ResourceManager;Lnet/minecraft/registry/RegistryKey;Lcom/mojang/serialization/DynamicOps;Lcom/mojang/serialization/Codec;Ljava/util/Map;)V", at = @At("TAIL"))
     private static <T> void load(ResourceManager manager, RegistryKey<? extends Registry<T>> registryRef, DynamicOps<JsonElement> ops, Codec<T> codec, Map<Identifier, T> results, CallbackInfo info) {
         if(ops instanceof RegistryOps<JsonElement> registryOps) {
-            CodecResourceReadWriter.getExtraOps().forEach((extension, parser) -> loadCustom(manager, new ResourceFinder(RegistryKeys.getPath(registryRef), "." + extension), parser.registryOps(registryOps), codec, results));
+            Map<String, CodecResourceReadWriter.DynamicOpsParser<?>> extraOps = CodecResourceReadWriter.getExtraOps();
+            if(!extraOps.isEmpty()) {
+                loadCustom(manager, RegistryKeys.getPath(registryRef), extraOps, registryOps, codec, results);
+            }
         } else {
             throw new IllegalArgumentException("JsonDataLoaderMixin received a non-registry codec! should never happen!");
         }
     }
 
-    private static <T> void loadCustom(ResourceManager resourceManager, ResourceFinder finder, CodecResourceReadWriter.DynamicOpsParser<?> parser, Codec<T> codec, Map<Identifier, T> results) {
-        for(Map.Entry<Identifier, Resource> entry : finder.findResources(resourceManager).entrySet()) {
-            try {
-                T parsed = parser.parse(entry.getValue().getReader(), codec);
-                Identifier loadedKey = finder.toResourceId(entry.getKey());
-                if (results.containsKey(loadedKey) && !SimpleResourcesCommon.getPreferredFormat().equals(ResourceUtil.getFileExtension(entry.getKey()))) {
-                    ErrorUtil.reloadWarning("Duplicate data file ignored with ID " + loadedKey + " (path " + entry.getKey() + ")");
-                    continue;
-                }
+    private static <T> void loadCustom(ResourceManager resourceManager, String directory, Map<String, CodecResourceReadWriter.DynamicOpsParser<?>> extraOps, RegistryOps<JsonElement> registryOps, Codec<T> codec, Map<Identifier, T> results) {
+        //a single scan for all the extra extensions instead of one per extension
+        Map<Identifier, Resource> resources = resourceManager.findResources(directory, id -> extraOps.containsKey(ResourceUtil.getFileExtension(id)));
+        if(resources.isEmpty()) {
+            return;
+        }
+
+        HashMap<String, CodecResourceReadWriter.DynamicOpsParser<?>> parsers = new HashMap<>();
+        for(Identifier id : resources.keySet()) {
+            String fileExtension = ResourceUtil.getFileExtension(id);
+            parsers.computeIfAbsent(fileExtension, extension -> extraOps.get(extension).registryOps(registryOps));
+        }
+
+        //the codecs of other loaders are not guaranteed to be thread safe, so the files only get parsed
+        //in parallel if the parallelism is raised, on a pool separate from the reload executor
+        List<Map.Entry<Identifier, Resource>> entries = List.copyOf(resources.entrySet());
+        List<Either<T, Throwable>> parsed = Util.mapInParallel(entries, entry -> parse(parsers.get(ResourceUtil.getFileExtension(entry.getKey())), entry.getValue(), codec), SimpleResourcesCommon.getDataLoaderParallelism());
+
+        //merged in the order returned by findResources, the same as when parsing sequentially, so the duplicates are resolved the same way every time
+        for(int i = 0; i < entries.size(); i++) {
+            Map.Entry<Identifier, Resource> entry = entries.get(i);
+            Either<T, Throwable> result = parsed.get(i);
+            if(result.right().isPresent()) {
+                ErrorUtil.reloadError("Error occurred while loading resource: " + entry.getKey().toString(), result.right().get());
+                continue;
+            }
 
-                results.put(loadedKey, parsed);
-            } catch (Throwable e) {
-                ErrorUtil.reloadError("Error occurred while loading resource: " + entry.getKey().toString(), e);
+            //same as ResourceFinder#toResourceId, namespace:directory/file.extension -> namespace:file
+            String path = entry.getKey().getPath();
+            Identifier loadedKey = entry.getKey().withPath(ResourceUtil.removeFileExtension(path.substring(directory.length() + 1)));
+            if (results.containsKey(loadedKey) && !SimpleResourcesCommon.getPreferredFormat().equals(ResourceUtil.getFileExtension(entry.getKey()))) {
+                ErrorUtil.reloadWarning("Duplicate data file ignored with ID " + loadedKey + " (path " + entry.getKey() + ")");
+                continue;
             }
+
+            results.put(loadedKey, result.left().orElseThrow());
+        }
+    }
+
+    //an either instead of a record, since classes in the mixin package cannot be loaded
+    private static <T> Either<T, Throwable> parse(CodecResourceReadWriter.DynamicOpsParser<?> parser, Resource resource, Codec<T> codec) {
+        try (Reader reader = resource.getReader()) {
+            return Either.left(parser.parse(reader, codec));
+        } catch (Throwable e) {
+            return Either.right(e);
         }
     }
 
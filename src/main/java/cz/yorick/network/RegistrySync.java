@@ -0,0 +1,248 @@
+package cz.yorick.network;
+
+import com.google.common.collect.ImmutableMap;
+import com.mojang.serialization.Codec;
+import cz.yorick.SimpleResourcesCommon;
+import cz.yorick.api.registry.SimpleDynamicRegistry;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.registry.RegistryOps;
+import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+
+/**
+ * Sends the values of dynamic registries to the clients, the whole registry gets sent on join
+ * and only the changed values get sent after a data pack reload
+ * */
+public class RegistrySync {
+    //payloads get split once the values in them are larger than this, the limit of a single payload is 1MiB
+    private static final int MAX_PAYLOAD_SIZE = 256 * 1024;
+    private static final Map<Identifier, SyncedRegistry<?>> syncedRegistries = new LinkedHashMap<>();
+
+    public static void init() {
+        PayloadTypeRegistry.playS2C().register(RegistrySyncPayload.ID, RegistrySyncPayload.CODEC);
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            for (SyncedRegistry<?> registry : syncedRegistries.values()) {
+                registry.sendFull(server, handler.getPlayer());
+            }
+        });
+
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            for (SyncedRegistry<?> registry : syncedRegistries.values()) {
+                registry.playerVersions.remove(handler.getPlayer().getUuid());
+            }
+        });
+
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            for (SyncedRegistry<?> registry : syncedRegistries.values()) {
+                registry.clearSynced();
+            }
+        });
+
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            if(!success) {
+                return;
+            }
+
+            for (SyncedRegistry<?> registry : syncedRegistries.values()) {
+                registry.sendUpdate(server);
+            }
+        });
+    }
+
+    public static <T> void register(SimpleDynamicRegistry<Identifier, T> registry, Codec<T> codec) {
+        if(syncedRegistries.putIfAbsent(registry.getRegistryId(), new SyncedRegistry<>(registry, codec)) != null) {
+            throw new IllegalArgumentException("Duplicate synced registry " + registry.getRegistryId());
+        }
+    }
+
+    /**
+     * Applies the received payload to the client copy of the registry
+     * */
+    public static void receive(RegistrySyncPayload payload, RegistryWrapper.WrapperLookup lookup) {
+        SyncedRegistry<?> registry = syncedRegistries.get(payload.registryId());
+        if(registry == null) {
+            SimpleResourcesCommon.LOGGER.warn("Received values of an unknown synced registry " + payload.registryId());
+            return;
+        }
+
+        registry.receive(payload, lookup);
+    }
+
+    /**
+     * Clears all the registries received from the server
+     * */
+    public static void clearReceived() {
+        for (SyncedRegistry<?> registry : syncedRegistries.values()) {
+            registry.clearReceived();
+        }
+    }
+
+    private static class SyncedRegistry<T> {
+        private final SimpleDynamicRegistry<Identifier, T> registry;
+        private final Codec<T> codec;
+        //server state, the last sent encoded values and the version of the registry every player has
+        private NbtCompound syncedValues = null;
+        private int version = 0;
+        private final Map<UUID, Integer> playerVersions = new HashMap<>();
+        //client state, null if nothing was received from the server
+        private HashMap<Identifier, T> receivedValues = null;
+        private int receivedVersion = -1;
+        private int pendingVersion = -1;
+        private SyncedRegistry(SimpleDynamicRegistry<Identifier, T> registry, Codec<T> codec) {
+            this.registry = registry;
+            this.codec = codec;
+        }
+
+        private void sendFull(MinecraftServer server, ServerPlayerEntity player) {
+            if(!shouldSendTo(server, player)) {
+                return;
+            }
+
+            if(this.syncedValues == null) {
+                this.syncedValues = encode(server);
+            }
+
+            send(player, RegistrySyncPayload.FULL_UPDATE, this.syncedValues, List.of());
+        }
+
+        private void sendUpdate(MinecraftServer server) {
+            NbtCompound newValues = encode(server);
+            if(this.syncedValues == null) {
+                this.syncedValues = newValues;
+                return;
+            }
+
+            //only the values which differ from the last sent ones
+            NbtCompound changed = new NbtCompound();
+            for (String key : newValues.getKeys()) {
+                NbtElement value = newValues.get(key);
+                if(!value.equals(this.syncedValues.get(key))) {
+                    changed.put(key, value);
+                }
+            }
+
+            List<Identifier> removed = new ArrayList<>();
+            for (String key : this.syncedValues.getKeys()) {
+                if(!newValues.contains(key)) {
+                    removed.add(Identifier.of(key));
+                }
+            }
+
+            if(changed.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+
+            int baseVersion = this.version;
+            this.version++;
+            this.syncedValues = newValues;
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                if(!shouldSendTo(server, player)) {
+                    continue;
+                }
+
+                //players which missed an update get all the values
+                if(this.playerVersions.getOrDefault(player.getUuid(), -1) == baseVersion) {
+                    send(player, baseVersion, changed, removed);
+                } else {
+                    send(player, RegistrySyncPayload.FULL_UPDATE, this.syncedValues, List.of());
+                }
+            }
+        }
+
+        private void clearSynced() {
+            this.syncedValues = null;
+            this.version = 0;
+            this.playerVersions.clear();
+        }
+
+        private boolean shouldSendTo(MinecraftServer server, ServerPlayerEntity player) {
+            //the host of an integrated server shares the registry with the server
+            return !server.isHost(player.getGameProfile()) && ServerPlayNetworking.canSend(player, RegistrySyncPayload.ID);
+        }
+
+        private void send(ServerPlayerEntity player, int baseVersion, NbtCompound values, List<Identifier> removed) {
+            NbtCompound part = new NbtCompound();
+            int partSize = 0;
+            for (String key : values.getKeys()) {
+                NbtElement value = values.get(key);
+                if(partSize > 0 && partSize + value.getSizeInBytes() > MAX_PAYLOAD_SIZE) {
+                    ServerPlayNetworking.send(player, new RegistrySyncPayload(this.registry.getRegistryId(), baseVersion, this.version, part, removed, false));
+                    part = new NbtCompound();
+                    partSize = 0;
+                    //the removed values only need to be sent once
+                    removed = List.of();
+                }
+
+                part.put(key, value);
+                partSize += value.getSizeInBytes();
+            }
+
+            ServerPlayNetworking.send(player, new RegistrySyncPayload(this.registry.getRegistryId(), baseVersion, this.version, part, removed, true));
+            this.playerVersions.put(player.getUuid(), this.version);
+        }
+
+        private NbtCompound encode(MinecraftServer server) {
+            RegistryOps<NbtElement> ops = server.getRegistryManager().getOps(NbtOps.INSTANCE);
+            NbtCompound values = new NbtCompound();
+            for (Identifier key : this.registry.getKeys()) {
+                T value = this.registry.getOrNull(key);
+                this.codec.encodeStart(ops, value)
+                        .ifSuccess(encoded -> values.put(key.toString(), encoded))
+                        .ifError(error -> SimpleResourcesCommon.LOGGER.error("Failed to encode the value " + key + " of the synced registry " + this.registry.getRegistryId() + ", the raw ids of the clients will not match the server: " + error.message()));
+            }
+
+            return values;
+        }
+
+        private void receive(RegistrySyncPayload payload, RegistryWrapper.WrapperLookup lookup) {
+            //the first part of an update
+            if(payload.version() != this.pendingVersion) {
+                if(payload.baseVersion() == RegistrySyncPayload.FULL_UPDATE || this.receivedValues == null) {
+                    this.receivedValues = new HashMap<>();
+                } else if(payload.baseVersion() != this.receivedVersion) {
+                    SimpleResourcesCommon.LOGGER.warn("Received an update of the synced registry " + this.registry.getRegistryId() + " for version " + payload.baseVersion() + ", but the current version is " + this.receivedVersion + ", ignoring");
+                    return;
+                }
+
+                this.pendingVersion = payload.version();
+            }
+
+            payload.removed().forEach(this.receivedValues::remove);
+            RegistryOps<NbtElement> ops = lookup.getOps(NbtOps.INSTANCE);
+            for (String key : payload.changed().getKeys()) {
+                Identifier id = Identifier.of(key);
+                this.codec.parse(ops, payload.changed().get(key))
+                        .ifSuccess(value -> this.receivedValues.put(id, value))
+                        .ifError(error -> SimpleResourcesCommon.LOGGER.error("Failed to decode the value " + id + " of the synced registry " + this.registry.getRegistryId() + ", the raw ids of the values after it will not match the server: " + error.message()));
+            }
+
+            if(payload.complete()) {
+                this.receivedVersion = this.pendingVersion;
+                //the registry assigns the raw ids in the sorted order of the ids, the same as on the server,
+                //so the raw ids match as long as both sides have the same ids
+                this.registry.reload(ImmutableMap.copyOf(this.receivedValues));
+            }
+        }
+
+        private void clearReceived() {
+            if(this.receivedValues == null) {
+                return;
+            }
+
+            this.receivedValues = null;
+            this.receivedVersion = -1;
+            this.pendingVersion = -1;
+            this.registry.reload(ImmutableMap.of());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cz.yorick.network;
+
+import cz.yorick.SimpleResourcesCommon;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+import java.util.List;
+
+/**
+ * A part of an update of a synced registry, large updates are split into multiple payloads
+ * @param baseVersion The version the update applies to, -1 if the update contains all the values
+ * @param version The version of the registry after the update
+ * @param changed The added or changed values, keyed by their ids
+ * @param removed The ids of the removed values
+ * @param complete If this is the last payload of the update
+ * */
+public record RegistrySyncPayload(Identifier registryId, int baseVersion, int version, NbtCompound changed, List<Identifier> removed, boolean complete) implements CustomPayload {
+    public static final int FULL_UPDATE = -1;
+    public static final CustomPayload.Id<RegistrySyncPayload> ID = new CustomPayload.Id<>(Identifier.of(SimpleResourcesCommon.MOD_ID, "registry_sync"));
+    public static final PacketCodec<RegistryByteBuf, RegistrySyncPayload> CODEC = PacketCodec.tuple(
+            Identifier.PACKET_CODEC, RegistrySyncPayload::registryId,
+            PacketCodecs.VAR_INT, RegistrySyncPayload::baseVersion,
+            PacketCodecs.VAR_INT, RegistrySyncPayload::version,
+            PacketCodecs.UNLIMITED_NBT_COMPOUND, RegistrySyncPayload::changed,
+            Identifier.PACKET_CODEC.collect(PacketCodecs.toList()), RegistrySyncPayload::removed,
+            PacketCodecs.BOOLEAN, RegistrySyncPayload::complete,
+            RegistrySyncPayload::new
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,16 @@
+package cz.yorick.ops;
+
+import com.mojang.serialization.DynamicOps;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by ops which can convert values of some other ops
+ * directly, without the generic {@link DynamicOps#convertTo(DynamicOps, Object)}
+ * */
+public interface DirectConvertingOps<T> {
+    /**
+     * @return The converted value or null if the ops are not supported
+     * */
+    @Nullable
+    <U> T convertFrom(DynamicOps<U> inOps, U input);
+}
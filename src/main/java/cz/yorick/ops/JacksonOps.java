@@ -4,19 +4,25 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.gson.JsonElement;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.MapLike;
+import com.mojang.serialization.RecordBuilder;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Objects;
+import java.util.List;
+import java.util.Map;
 import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-public class JacksonOps implements DynamicOps<JsonNode> {
+public class JacksonOps implements DynamicOps<JsonNode>, DirectConvertingOps<JsonNode> {
     public static final JacksonOps INSTANCE = new JacksonOps();
 
     @Override
@@ -25,7 +31,16 @@ public class JacksonOps implements DynamicOps<JsonNode> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <U> U convertTo(DynamicOps<U> outOps, JsonNode input) {
+        if(outOps instanceof JacksonOps) {
+            return (U) input;
+        }
+
+        if(outOps == JsonOps.INSTANCE) {
+            return (U) JsonElementConverter.toJsonElement(input);
+        }
+
         if (input.isObject()) {
             return convertMap(outOps, input);
         }
@@ -50,6 +65,19 @@ public class JacksonOps implements DynamicOps<JsonNode> {
         throw new IllegalArgumentException("Unknown type: " + input);
     }
 
+    @Override
+    public <U> JsonNode convertFrom(DynamicOps<U> inOps, U input) {
+        if(inOps instanceof JacksonOps) {
+            return (JsonNode) input;
+        }
+
+        if(inOps == JsonOps.INSTANCE) {
+            return JsonElementConverter.toJsonNode((JsonElement) input);
+        }
+
+        return null;
+    }
+
     @Override
     public DataResult<Boolean> getBooleanValue(JsonNode input) {
         if(input != null && input.isBoolean()) {
@@ -111,32 +139,79 @@ public class JacksonOps implements DynamicOps<JsonNode> {
 
     @Override
     public DataResult<JsonNode> mergeToList(JsonNode list, JsonNode value) {
-        if(list != null && list.isArray()) {
-            ArrayNode result = JsonNodeFactory.instance.arrayNode();
-            result.addAll((ArrayNode)list);
-            result.add(value);
-            return DataResult.success(result);
+        return mergeToList(list, List.of(value));
+    }
+
+    @Override
+    public DataResult<JsonNode> mergeToList(JsonNode list, List<JsonNode> values) {
+        if((list == null || !list.isArray()) && list != empty()) {
+            return DataResult.error(() -> "Not a list: " + list);
         }
 
-        return DataResult.error(() -> "Not a list: " + list);
+        ArrayNode result = JsonNodeFactory.instance.arrayNode();
+        if(list != empty()) {
+            result.addAll((ArrayNode)list);
+        }
+        result.addAll(values);
+        return DataResult.success(result);
     }
 
     @Override
     public DataResult<JsonNode> mergeToMap(JsonNode map, JsonNode key, JsonNode value) {
-        if((map == null || !map.isObject()) && map != empty()) {
+        if(key == null || !key.isTextual()) {
+            return DataResult.error(() -> "Map key is not a string: " + key);
+        }
+
+        ObjectNode result = copyMap(map);
+        if(result == null) {
             return DataResult.error(() -> "Not a map: " + map);
         }
 
-        if(key == null || !key.isTextual()) {
-            return DataResult.error(() -> "Map key is not a string: " + key);
+        result.set(key.asText(), value);
+        return DataResult.success(result);
+    }
+
+    @Override
+    public DataResult<JsonNode> mergeToMap(JsonNode map, Map<JsonNode, JsonNode> values) {
+        return mergeToMap(map, MapLike.forMap(values, this));
+    }
+
+    @Override
+    public DataResult<JsonNode> mergeToMap(JsonNode map, MapLike<JsonNode> values) {
+        ObjectNode result = copyMap(map);
+        if(result == null) {
+            return DataResult.error(() -> "Not a map: " + map);
+        }
+
+        List<JsonNode> invalidKeys = new ArrayList<>();
+        values.entries().forEach(entry -> {
+            if(entry.getFirst() == null || !entry.getFirst().isTextual()) {
+                invalidKeys.add(entry.getFirst());
+                return;
+            }
+
+            result.set(entry.getFirst().asText(), entry.getSecond());
+        });
+
+        if(!invalidKeys.isEmpty()) {
+            return DataResult.error(() -> "Map keys are not strings: " + invalidKeys, result);
+        }
+
+        return DataResult.success(result);
+    }
+
+    //creates a shallow copy of the map, so values can be added without modifying the original
+    //returns null if the node is not a map
+    private ObjectNode copyMap(JsonNode map) {
+        if((map == null || !map.isObject()) && map != empty()) {
+            return null;
         }
 
         ObjectNode result = JsonNodeFactory.instance.objectNode();
         if(map != empty()) {
-            asStream(map.fields()).forEach(entry -> result.set(entry.getKey(), entry.getValue()));
+            result.setAll((ObjectNode)map);
         }
-        result.set(key.asText(), value);
-        return DataResult.success(result);
+        return result;
     }
 
     @Override
@@ -176,13 +251,55 @@ public class JacksonOps implements DynamicOps<JsonNode> {
     public JsonNode remove(JsonNode input, String key) {
         if(input != null && input.isObject()) {
             ObjectNode result = JsonNodeFactory.instance.objectNode();
-            asStream(input.fields()).filter(entry -> !Objects.equals(entry.getKey(), key)).forEach(entry -> result.set(entry.getKey(), entry.getValue()));
+            result.setAll((ObjectNode)input);
+            result.remove(key);
             return result;
         }
 
         return input;
     }
 
+    /**
+     * Collects the fields into a single mutable node, instead of copying
+     * the whole map for every added field like the default builder does
+     * */
+    @Override
+    public RecordBuilder<JsonNode> mapBuilder() {
+        return new JacksonRecordBuilder();
+    }
+
+    private class JacksonRecordBuilder extends RecordBuilder.AbstractStringBuilder<JsonNode, ObjectNode> {
+        private JacksonRecordBuilder() {
+            super(JacksonOps.this);
+        }
+
+        @Override
+        protected ObjectNode initBuilder() {
+            return JsonNodeFactory.instance.objectNode();
+        }
+
+        @Override
+        protected ObjectNode append(String key, JsonNode value, ObjectNode builder) {
+            builder.set(key, value);
+            return builder;
+        }
+
+        @Override
+        protected DataResult<JsonNode> build(ObjectNode builder, JsonNode prefix) {
+            if(prefix == null || prefix == empty()) {
+                return DataResult.success(builder);
+            }
+
+            ObjectNode result = copyMap(prefix);
+            if(result == null) {
+                return DataResult.error(() -> "mergeToMap called with not a map: " + prefix, prefix);
+            }
+
+            result.setAll(builder);
+            return DataResult.success(result);
+        }
+    }
+
     private static <T> Stream<T> asStream(Iterator<T> iterator) {
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, 0), false);
     }
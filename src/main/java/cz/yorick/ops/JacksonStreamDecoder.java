@@ -0,0 +1,139 @@
+package cz.yorick.ops;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.MapCodec;
+import com.mojang.serialization.MapLike;
+import cz.yorick.api.FileTypeInitializer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class JacksonStreamDecoder implements FileTypeInitializer.StreamDecoder<JsonNode> {
+    private final ParserFactory parserFactory;
+    public JacksonStreamDecoder(ParserFactory parserFactory) {
+        this.parserFactory = parserFactory;
+    }
+
+    @Override
+    public <V> DataResult<V> decode(Reader reader, DynamicOps<JsonNode> ops, MapCodec<V> codec) throws Exception {
+        try (JsonParser parser = this.parserFactory.createParser(reader)) {
+            if(parser.nextToken() != JsonToken.START_OBJECT) {
+                //not a map, let the codec report the error
+                return codec.codec().parse(ops, readValue(parser));
+            }
+
+            Set<String> keys = codec.keys(ops).flatMap(key -> ops.getStringValue(key).result().stream()).collect(Collectors.toSet());
+            return codec.decode(ops, readKnownEntries(parser, keys));
+        }
+    }
+
+    /**
+     * Reads the whole value the parser is pointing at into a tree, moves
+     * to the first token if the parser has not been used yet
+     * */
+    public static JsonNode readTree(JsonParser parser) throws IOException {
+        if(parser.currentToken() == null && parser.nextToken() == null) {
+            return JsonNodeFactory.instance.missingNode();
+        }
+
+        return readValue(parser);
+    }
+
+    private static JsonNode readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if(token == null) {
+            throw new JsonParseException(parser, "Unexpected end of input");
+        }
+
+        return switch (token) {
+            case START_OBJECT -> {
+                ObjectNode node = JsonNodeFactory.instance.objectNode();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    node.set(name, readValue(parser));
+                }
+                yield node;
+            }
+            case START_ARRAY -> {
+                ArrayNode node = JsonNodeFactory.instance.arrayNode();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    node.add(readValue(parser));
+                }
+                yield node;
+            }
+            case VALUE_STRING -> JsonNodeFactory.instance.textNode(parser.getText());
+            case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                case INT -> JsonNodeFactory.instance.numberNode(parser.getIntValue());
+                case LONG -> JsonNodeFactory.instance.numberNode(parser.getLongValue());
+                default -> JsonNodeFactory.instance.numberNode(parser.getBigIntegerValue());
+            };
+            case VALUE_NUMBER_FLOAT -> parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL ? JsonNodeFactory.instance.numberNode(parser.getDecimalValue()) : JsonNodeFactory.instance.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE -> JsonNodeFactory.instance.booleanNode(true);
+            case VALUE_FALSE -> JsonNodeFactory.instance.booleanNode(false);
+            case VALUE_NULL -> JsonNodeFactory.instance.nullNode();
+            //formats like toml can expose dates as embedded objects
+            case VALUE_EMBEDDED_OBJECT -> JsonNodeFactory.instance.textNode(String.valueOf(parser.getEmbeddedObject()));
+            default -> throw new JsonParseException(parser, "Unexpected token " + token);
+        };
+    }
+
+    /**
+     * Reads the whole object the parser is pointing at, values of keys which are not known
+     * by the codec are skipped without being built. Duplicate keys keep the last value in the
+     * position of the first one, the same way the tree parsed by jackson does
+     * */
+    private static MapLike<JsonNode> readKnownEntries(JsonParser parser, Set<String> keys) throws IOException {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if(!keys.contains(name)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            node.set(name, readValue(parser));
+        }
+
+        return new MapLike<>() {
+            @Override
+            public JsonNode get(JsonNode key) {
+                return key != null && key.isTextual() ? get(key.asText()) : null;
+            }
+
+            @Override
+            public JsonNode get(String key) {
+                return node.get(key);
+            }
+
+            @Override
+            public Stream<Pair<JsonNode, JsonNode>> entries() {
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(node.fields(), Spliterator.ORDERED), false)
+                        .map(entry -> Pair.of(JsonNodeFactory.instance.textNode(entry.getKey()), entry.getValue()));
+            }
+
+            @Override
+            public String toString() {
+                return "KnownEntriesMapLike[" + node + "]";
+            }
+        };
+    }
+
+    public interface ParserFactory {
+        JsonParser createParser(Reader reader) throws IOException;
+    }
+}
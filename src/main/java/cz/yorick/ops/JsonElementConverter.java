@@ -0,0 +1,109 @@
+package cz.yorick.ops;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Converts between jackson and gson trees directly, without going
+ * through the generic map and list conversion of {@link com.mojang.serialization.DynamicOps}
+ * */
+public class JsonElementConverter {
+    public static JsonElement toJsonElement(JsonNode node) {
+        if(node.isObject()) {
+            JsonObject object = new JsonObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                object.add(field.getKey(), toJsonElement(field.getValue()));
+            }
+            return object;
+        }
+
+        if(node.isArray()) {
+            JsonArray array = new JsonArray(node.size());
+            for (JsonNode element : node) {
+                array.add(toJsonElement(element));
+            }
+            return array;
+        }
+
+        if(node.isNull() || node.isMissingNode()) {
+            return JsonNull.INSTANCE;
+        }
+
+        if(node.isTextual()) {
+            return new JsonPrimitive(node.textValue());
+        }
+
+        if(node.isBoolean()) {
+            return new JsonPrimitive(node.booleanValue());
+        }
+
+        if(node.isNumber()) {
+            return new JsonPrimitive(node.numberValue());
+        }
+
+        throw new IllegalArgumentException("Unknown type: " + node);
+    }
+
+    public static JsonNode toJsonNode(JsonElement element) {
+        if(element.isJsonObject()) {
+            ObjectNode object = JsonNodeFactory.instance.objectNode();
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                object.set(entry.getKey(), toJsonNode(entry.getValue()));
+            }
+            return object;
+        }
+
+        if(element.isJsonArray()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode(element.getAsJsonArray().size());
+            for (JsonElement value : element.getAsJsonArray()) {
+                array.add(toJsonNode(value));
+            }
+            return array;
+        }
+
+        if(element.isJsonNull()) {
+            return JsonNodeFactory.instance.nullNode();
+        }
+
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if(primitive.isString()) {
+            return JsonNodeFactory.instance.textNode(primitive.getAsString());
+        }
+
+        if(primitive.isBoolean()) {
+            return JsonNodeFactory.instance.booleanNode(primitive.getAsBoolean());
+        }
+
+        //parsed numbers are lazy, so the type is taken from the source text, numbers with
+        //a fraction or an exponent stay floating point even if their value is whole (1.0)
+        Number number = primitive.getAsNumber();
+        String text = primitive.getAsString();
+        if(number instanceof Double || number instanceof Float || text.indexOf('.') != -1 || text.indexOf('e') != -1 || text.indexOf('E') != -1) {
+            return JsonNodeFactory.instance.numberNode(number.doubleValue());
+        }
+
+        BigInteger value = primitive.getAsBigInteger();
+        if(value.bitLength() < Integer.SIZE) {
+            return JsonNodeFactory.instance.numberNode(value.intValue());
+        }
+
+        if(value.bitLength() < Long.SIZE) {
+            return JsonNodeFactory.instance.numberNode(value.longValue());
+        }
+
+        return JsonNodeFactory.instance.numberNode(value);
+    }
+}
@@ -0,0 +1,133 @@
+package cz.yorick.resources;
+
+import cz.yorick.SimpleResourcesCommon;
+import cz.yorick.resources.loader.DirectoryCache;
+import cz.yorick.resources.type.SimpleReloadableResource;
+import cz.yorick.resources.type.SimpleResource;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the config directory and reloads the reloadable resources whose files changed,
+ * the resources get loaded on the watcher thread and published on the main thread of the physical side if there is one
+ * */
+public class ConfigWatcher {
+    //events are collected until there is no new event for this long, so a burst of changes causes a single reload
+    private static final long DEBOUNCE_MILLIS = 300;
+    private static volatile Executor serverExecutor = null;
+    private static volatile Executor clientExecutor = null;
+    private static boolean started = false;
+
+    public static synchronized void start() {
+        if(started) {
+            return;
+        }
+
+        started = true;
+        Path configDir = FabricLoader.getInstance().getConfigDir();
+        try {
+            WatchService watchService = configDir.getFileSystem().newWatchService();
+            registerRecursively(watchService, configDir);
+            Thread thread = new Thread(() -> watch(watchService), "SimpleResources-Config-Watcher");
+            thread.setDaemon(true);
+            thread.start();
+            SimpleResourcesCommon.LOGGER.info("Watching the config directory for changes");
+        } catch (IOException e) {
+            SimpleResourcesCommon.LOGGER.error("Failed to start watching the config directory", e);
+        }
+    }
+
+    public static void setServerExecutor(Executor executor) {
+        serverExecutor = executor;
+    }
+
+    public static void setClientExecutor(Executor executor) {
+        clientExecutor = executor;
+    }
+
+    private static void watch(WatchService watchService) {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new HashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collectChanges(watchService, key, changedFiles);
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                reloadAffected(changedFiles);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            SimpleResourcesCommon.LOGGER.info("Stopped watching the config directory");
+        }
+    }
+
+    private static void collectChanges(WatchService watchService, WatchKey key, Set<Path> changedFiles) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                SimpleResourcesCommon.LOGGER.warn("Too many changes in the config directory, some changes might have been missed");
+                continue;
+            }
+
+            Path changed = directory.resolve((Path) event.context());
+            //temporary files of atomic writes, the move to the actual file gets its own event
+            if(changed.getFileName().toString().endsWith(".tmp")) {
+                continue;
+            }
+
+            if(event.kind() != StandardWatchEventKinds.ENTRY_MODIFY) {
+                DirectoryCache.invalidate(directory);
+            }
+
+            if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                try {
+                    registerRecursively(watchService, changed);
+                } catch (IOException e) {
+                    SimpleResourcesCommon.LOGGER.error("Failed to watch the directory " + SimpleResource.Loader.getRelativePath(changed), e);
+                }
+            }
+
+            changedFiles.add(changed);
+        }
+
+        key.reset();
+    }
+
+    private static void reloadAffected(Set<Path> changedFiles) {
+        //on a physical client the listeners run on the client thread even with an integrated server running,
+        //the same thread they run on without the watcher, since client configs may touch the client state
+        Executor sideExecutor = FabricLoader.getInstance().getEnvironmentType() == EnvType.CLIENT ? clientExecutor : serverExecutor;
+        Executor executor = sideExecutor != null ? sideExecutor : Runnable::run;
+        for (SimpleReloadableResource<?> resource : Util.getReloadableResources()) {
+            if(changedFiles.stream().noneMatch(resource::isAffectedBy)) {
+                continue;
+            }
+
+            try {
+                resource.reload(error -> SimpleResourcesCommon.LOGGER.error("Error while reloading the resource " + resource.getFile(), error), executor);
+                SimpleResourcesCommon.LOGGER.info("Reloaded the changed resource " + SimpleResource.Loader.getRelativePath(resource.getFile().toPath()));
+            } catch (Throwable e) {
+                SimpleResourcesCommon.LOGGER.error("Failed to reload the changed resource " + SimpleResource.Loader.getRelativePath(resource.getFile().toPath()), e);
+            }
+        }
+    }
+
+    private static void registerRecursively(WatchService watchService, Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,14 +1,26 @@
 package cz.yorick.resources;
 
 import cz.yorick.SimpleResourcesCommon;
+import cz.yorick.resources.loader.DirectoryCache;
 import cz.yorick.resources.type.SimpleReloadableResource;
 import cz.yorick.resources.type.SimpleResource;
 import net.minecraft.util.Identifier;
 
 import java.io.File;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class Util {
@@ -59,6 +71,62 @@ public class Util {
         return String.join("/", files.reversed());
     }
 
+    /**
+     * Writes into a temporary file next to the target, which then replaces the target,
+     * so the target never ends up partially written
+     * */
+    public static void writeAtomically(Path path, ContentWriter contentWriter) throws Exception {
+        //not Files.createTempFile, since that always creates the file as only readable by the owner
+        Path tempFile = path.toAbsolutePath().resolveSibling(path.getFileName() + "." + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE) + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                contentWriter.write(writer);
+            }
+
+            //the replaced file keeps its permissions
+            if(Files.exists(path) && Files.getFileAttributeView(path, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(path));
+            }
+
+            try {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+            DirectoryCache.invalidate(path.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Maps the values keeping their order, using a temporary pool with at most the specified amount of threads,
+     * so the mapping never competes for the threads of the executor which called this. A parallelism
+     * of 1 maps the values on the calling thread
+     * */
+    public static <A, B> List<B> mapInParallel(List<A> values, Function<A, B> mapper, int parallelism) {
+        parallelism = Math.min(parallelism, values.size());
+        if(parallelism <= 1) {
+            return values.stream().map(mapper).toList();
+        }
+
+        //a parallel stream started from inside a pool runs on that pool, so the amount of threads stays bounded
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism, Util::createWorker, null, false)) {
+            return pool.submit(() -> values.parallelStream().map(mapper).toList()).join();
+        }
+    }
+
+    //the default workers use the system class loader, which cannot see mod classes
+    private static ForkJoinWorkerThread createWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setContextClassLoader(Util.class.getClassLoader());
+        return thread;
+    }
+
+    public interface ContentWriter {
+        void write(Writer writer) throws Exception;
+    }
+
     public static String removeFileExtension(String path) {
         String fileExtension = getFileExtension(path);
         if(fileExtension == null) {
@@ -0,0 +1,70 @@
+package cz.yorick.resources.loader;
+
+import cz.yorick.SimpleResourcesCommon;
+import cz.yorick.resources.Util;
+import cz.yorick.resources.type.SimpleResource;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the default files of resources on a background thread, the content gets serialized on
+ * the calling thread, so only the disk access is deferred. Flushed before the server and the client start
+ * */
+public class AsyncFileWriter {
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SimpleResources-File-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<Future<?>> pendingWrites = new HashSet<>();
+
+    public static void write(Path path, String content) {
+        synchronized (pendingWrites) {
+            CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+                try {
+                    Util.writeAtomically(path, writer -> writer.write(content));
+                    SimpleResourcesCommon.LOGGER.info("Wrote default data to file " + SimpleResource.Loader.getRelativePath(path));
+                } catch (Exception e) {
+                    SimpleResourcesCommon.LOGGER.error("Failed to write default data to file " + SimpleResource.Loader.getRelativePath(path), e);
+                }
+            }, executor);
+            pendingWrites.add(write);
+            //finished writes are removed, so writes queued after the last flush do not pile up
+            write.whenComplete((unused, error) -> {
+                synchronized (pendingWrites) {
+                    pendingWrites.remove(write);
+                }
+            });
+        }
+    }
+
+    /**
+     * Blocks until all the queued files are written
+     * */
+    public static void flush() {
+        List<Future<?>> writes;
+        synchronized (pendingWrites) {
+            writes = List.copyOf(pendingWrites);
+            pendingWrites.clear();
+        }
+
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                SimpleResourcesCommon.LOGGER.error("Failed to write a default file", e.getCause());
+            }
+        }
+    }
+}
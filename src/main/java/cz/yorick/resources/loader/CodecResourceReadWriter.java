@@ -8,9 +8,12 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
 import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.MapCodec;
 import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.FileTypeInitializer;
 import cz.yorick.api.resources.ResourceReadWriter;
+import cz.yorick.codec.KnownKeysMapCodec;
+import cz.yorick.ops.DirectConvertingOps;
 import net.minecraft.registry.RegistryOps;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.util.JsonHelper;
@@ -65,7 +68,7 @@ public class CodecResourceReadWriter<T> implements ResourceReadWriter<T> {
     private static final HashMap<String, DynamicOpsParser<?>> dynamicOpsRegistry = new HashMap<>();
     private static final HashMap<String, DynamicOpsParser<?>> extraOps = new HashMap<>();
     static {
-        dynamicOpsRegistry.put("json", new DynamicOpsParser<>(JsonOps.INSTANCE, JsonParser::parseReader, CodecResourceReadWriter::writeJson));
+        dynamicOpsRegistry.put("json", new DynamicOpsParser<>(JsonOps.INSTANCE, JsonParser::parseReader, CodecResourceReadWriter::writeJson, null));
     }
     public static <T> void registerOps(FileTypeInitializer<T> initializer) {
         String fileExtension = initializer.getExtension();
@@ -74,7 +77,7 @@ public class CodecResourceReadWriter<T> implements ResourceReadWriter<T> {
             return;
         }
 
-        DynamicOpsParser<T> opsParser = new DynamicOpsParser<>(initializer.getOps(), initializer::read, initializer::write);
+        DynamicOpsParser<T> opsParser = new DynamicOpsParser<>(initializer.getOps(), initializer::read, initializer::write, initializer.getStreamDecoder());
         dynamicOpsRegistry.put(fileExtension, opsParser);
         extraOps.put(fileExtension, opsParser);
     }
@@ -103,8 +106,13 @@ public class CodecResourceReadWriter<T> implements ResourceReadWriter<T> {
         }
     }
 
-    public record DynamicOpsParser<T>(DynamicOps<T> ops, OpsReader<T> readerParser, OpsWriter<T> writer) {
+    public record DynamicOpsParser<T>(DynamicOps<T> ops, OpsReader<T> readerParser, OpsWriter<T> writer, @Nullable FileTypeInitializer.StreamDecoder<T> streamDecoder) {
         public <V> V parse(Reader reader, Codec<V> codec) throws Exception {
+            //map codecs which only read their own keys can skip building the whole tree
+            if(this.streamDecoder != null && codec instanceof MapCodec.MapCodecCodec<V> mapCodecCodec && mapCodecCodec.codec() instanceof KnownKeysMapCodec) {
+                return this.streamDecoder.decode(reader, this.ops, mapCodecCodec.codec()).getOrThrow();
+            }
+
             return codec.parse(this.ops, this.readerParser.read(reader)).getOrThrow();
         }
 
@@ -114,16 +122,21 @@ public class CodecResourceReadWriter<T> implements ResourceReadWriter<T> {
         }
 
         public DynamicOpsParser<T> registryOps(RegistryOps<?> registryOps) {
-            return new DynamicOpsParser<>(registryOps.withDelegate(this.ops), this.readerParser, this.writer);
+            return new DynamicOpsParser<>(registryOps.withDelegate(this.ops), this.readerParser, this.writer, this.streamDecoder);
         }
 
         public DynamicOpsParser<T> withLookup(RegistryWrapper.WrapperLookup lookup) {
-            return new DynamicOpsParser<>(lookup.getOps(this.ops), this.readerParser, this.writer);
+            return new DynamicOpsParser<>(lookup.getOps(this.ops), this.readerParser, this.writer, this.streamDecoder);
         }
 
+        @SuppressWarnings("unchecked")
         public <T2> void convertTo(CodecResourceReadWriter.DynamicOpsParser<T2> other, Reader reader, Writer writer) throws Exception {
             T result = this.readerParser.read(reader);
-            T2 converted = this.ops.convertTo(other.ops(), result);
+            //the target ops may know how to read the source tree directly, otherwise fall back to the generic conversion
+            T2 converted = other.ops() instanceof DirectConvertingOps<?> directOps ? ((DirectConvertingOps<T2>) directOps).convertFrom(this.ops, result) : null;
+            if(converted == null) {
+                converted = this.ops.convertTo(other.ops(), result);
+            }
             other.writer().write(writer, converted);
         }
     }
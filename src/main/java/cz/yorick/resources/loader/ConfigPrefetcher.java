@@ -0,0 +1,47 @@
+package cz.yorick.resources.loader;
+
+import cz.yorick.SimpleResourcesCommon;
+import cz.yorick.resources.type.SimpleResource;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads the values of lazy configs on background threads as soon as they are registered, so most of them
+ * are already loaded when they first get requested. The values are only published and the reload listeners
+ * invoked once the config is requested, on the requesting thread, which waits if the value is still loading
+ * */
+public class ConfigPrefetcher {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(Math.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 4), runnable -> {
+        Thread thread = new Thread(runnable, "SimpleResources-Config-Prefetcher-" + threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static <T> CompletableFuture<T> load(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(loader, executor);
+    }
+
+    /**
+     * Waits for the prefetched value
+     * @return The value or null if there is no prefetched value or the prefetch failed
+     * */
+    public static <T> T getOrNull(CompletableFuture<T> prefetched, File file) {
+        if(prefetched == null) {
+            return null;
+        }
+
+        try {
+            return prefetched.join();
+        } catch (CompletionException e) {
+            SimpleResourcesCommon.LOGGER.error("Failed to prefetch the resource " + SimpleResource.Loader.getRelativePath(file.toPath()) + ", loading it again", e.getCause());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cz.yorick.resources.loader;
+
+import cz.yorick.resources.Util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the files of config directories grouped by their names without the extension,
+ * invalidated on reload, when the watcher notices a change and when a file gets written
+ * */
+public class DirectoryCache {
+    private static final ConcurrentHashMap<Path, Map<String, List<String>>> listings = new ConcurrentHashMap<>();
+
+    /**
+     * @return The names of the files in the directory which have the name once the extension is removed
+     * */
+    public static List<String> getFiles(Path directory, String name) {
+        return listings.computeIfAbsent(directory.toAbsolutePath().normalize(), DirectoryCache::list).getOrDefault(name, List.of());
+    }
+
+    public static void invalidate(Path directory) {
+        listings.remove(directory.toAbsolutePath().normalize());
+    }
+
+    private static Map<String, List<String>> list(Path directory) {
+        String[] files = directory.toFile().list();
+        if(files == null) {
+            return Map.of();
+        }
+
+        HashMap<String, List<String>> byName = new HashMap<>();
+        for (String file : files) {
+            if(Util.getFileExtension(file) == null) {
+                continue;
+            }
+
+            byName.computeIfAbsent(Util.removeFileExtension(file), name -> new ArrayList<>(1)).add(file);
+        }
+
+        return byName;
+    }
+}
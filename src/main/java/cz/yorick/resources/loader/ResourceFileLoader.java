@@ -7,12 +7,14 @@ import cz.yorick.resources.Util;
 import cz.yorick.resources.type.SimpleResource;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -29,17 +31,32 @@ public class ResourceFileLoader<T> implements SimpleResource.Loader<T> {
     public T load(Path path, Consumer<ResourceParseException> errorHandler) {
         try {
             File file = getFile(path);
-            //a new file got created
+            //the file is missing
             if(file == null) {
                 T defaultValue = this.defaultFactory.get();
-                //use getFile, this time it won't return null
-                File newFile = getFile(path);
-                //noinspection DataFlowIssue
-                this.readWriter.write(Util.getFileExtensionOrThrow(newFile.getName()), new FileWriter(newFile), defaultValue);
-                SimpleResourcesCommon.LOGGER.info("Wrote default data to file " + newFile);
+                //serialized right away, only writing to the disk is deferred
+                StringWriter content = new StringWriter();
+                this.readWriter.write(Util.getFileExtensionOrThrow(Util.pathToString(path)), content, defaultValue);
+                AsyncFileWriter.write(path, content.toString());
                 return defaultValue;
             }
-            return this.readWriter.read(Util.getFileExtensionOrThrow(Util.pathToString(path)), new FileReader(file));
+
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                return this.readWriter.read(Util.getFileExtensionOrThrow(Util.pathToString(path)), reader);
+            }
+        } catch (Throwable e) {
+            errorHandler.accept(new ResourceParseException("Error while loading the file " + SimpleResource.Loader.getRelativePath(path), e));
+            return this.defaultFactory.get();
+        }
+    }
+
+    /**
+     * Parses the already read content of the file at the path, returns the
+     * default value and notifies the error handler if parsing fails
+     * */
+    public T read(Path path, byte[] content, Consumer<ResourceParseException> errorHandler) {
+        try {
+            return this.readWriter.read(Util.getFileExtensionOrThrow(Util.pathToString(path)), new StringReader(new String(content, StandardCharsets.UTF_8)));
         } catch (Throwable e) {
             errorHandler.accept(new ResourceParseException("Error while loading the file " + SimpleResource.Loader.getRelativePath(path), e));
             return this.defaultFactory.get();
@@ -63,11 +80,8 @@ public class ResourceFileLoader<T> implements SimpleResource.Loader<T> {
             }
         }
 
-        if(!file.createNewFile()) {
-            throw new IOException("Could not create the file " + SimpleResource.Loader.getRelativePath(path));
-        }
-
-        SimpleResourcesCommon.LOGGER.info("File missing, created new file " + file);
+        //the file gets created once the default data is written, so there is never an empty file
+        SimpleResourcesCommon.LOGGER.info("File " + SimpleResource.Loader.getRelativePath(path) + " is missing, writing default data");
         return null;
     }
 
@@ -78,19 +92,14 @@ public class ResourceFileLoader<T> implements SimpleResource.Loader<T> {
 
     @Override
     public Path getFilePath(Path path, String name) {
-        File preferredFile = path.resolve(name + "." + SimpleResourcesCommon.getPreferredFormat()).toFile();
-        //if there is a file with the preferred extension, use that
-        if(preferredFile.exists()) {
-            return preferredFile.toPath();
-        }
-
         //all possible files
-        String[] files = path.toFile().list((dir, fileName) -> isValidName(name, fileName));
-        if(files == null) {
-            return preferredFile.toPath();
+        List<String> validFiles = DirectoryCache.getFiles(path, name);
+        String preferredFile = name + "." + SimpleResourcesCommon.getPreferredFormat();
+        //if there is a file with the preferred extension, use that
+        if(validFiles.contains(preferredFile)) {
+            return path.resolve(preferredFile);
         }
 
-        List<String> validFiles = Arrays.asList(files);
         //if there is a json file, use it as a fallback
         String jsonFile = name + ".json";
         if(validFiles.contains(jsonFile)) {
@@ -98,12 +107,17 @@ public class ResourceFileLoader<T> implements SimpleResource.Loader<T> {
         }
 
         //if there is at least 1 valid file, use the first one
-        if(validFiles.size() > 0) {
+        if(!validFiles.isEmpty()) {
             return path.resolve(validFiles.getFirst());
         }
 
         //if there are no valid files, return the preferred file so that it gets created
-        return preferredFile.toPath();
+        return path.resolve(preferredFile);
+    }
+
+    @Override
+    public boolean isAffectedBy(Path path, String name, Path changedFile) {
+        return path.equals(changedFile.getParent()) && isValidName(name, changedFile.getFileName().toString());
     }
 
     private boolean isValidName(String configName, String fileName) {
@@ -1,10 +1,14 @@
 package cz.yorick.resources.loader;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.ResourceReadWriter;
 import cz.yorick.resources.ResourceParseException;
 import cz.yorick.resources.Util;
 import cz.yorick.resources.type.SimpleResource;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -13,7 +17,10 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -21,6 +28,8 @@ import java.util.function.Predicate;
 public class ResourceTreeLoader<T> implements SimpleResource.Loader<Map<String, T>> {
     private final ResourceFileLoader<T> fileLoader;
     private final Predicate<String> shouldStripExtension;
+    //the files which were parsed successfully during the last load, unchanged files get reused on reload
+    private volatile Map<Path, IndexEntry<T>> index = ImmutableMap.of();
     public ResourceTreeLoader(ResourceReadWriter<T> readWriter) {
         this.fileLoader = new ResourceFileLoader<>(() -> null, readWriter);
         this.shouldStripExtension = readWriter::shouldStripFileExtension;
@@ -35,7 +44,8 @@ public class ResourceTreeLoader<T> implements SimpleResource.Loader<Map<String,
             return ImmutableMap.of();
         }
 
-        HashMap<String, T> results = new HashMap<>();
+        //walk first, so the files can be parsed in parallel
+        List<FoundFile> files = new ArrayList<>();
         try {
             Files.walkFileTree(path, new FileVisitor<>() {
                 @Override
@@ -45,22 +55,7 @@ public class ResourceTreeLoader<T> implements SimpleResource.Loader<Map<String,
 
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    T loadedValue = ResourceTreeLoader.this.fileLoader.load(file, errorHandler);
-                    //default factory returns null, which means parsing failed and error notification
-                    //was handled by the file loader
-                    if(loadedValue == null) {
-                        return FileVisitResult.CONTINUE;
-                    }
-
-                    //converts D:/server/config/namespace/resource_name/file.extension -> file.extension
-                    //converts D:/server/config/namespace/resource_name/directory/file.extension -> directory/file.extension
-                    Path relativePath = path.relativize(file);
-                    String path = Util.pathToString(relativePath);
-                    if(ResourceTreeLoader.this.shouldStripExtension.test(Util.getFileExtension(path))) {
-                        path = Util.removeFileExtension(path);
-                    }
-
-                    results.put(Util.removeFileExtension(path), loadedValue);
+                    files.add(new FoundFile(file, attrs.lastModifiedTime().toMillis(), attrs.size()));
                     return FileVisitResult.CONTINUE;
                 }
 
@@ -78,9 +73,76 @@ public class ResourceTreeLoader<T> implements SimpleResource.Loader<Map<String,
             errorHandler.accept(new ResourceParseException("Fatal error occurred while loading directory " + SimpleResource.Loader.getRelativePath(path) + " returning only partial result", e));
         }
 
+        //sorted so the result does not depend on the walk order
+        files.sort(Comparator.comparing(FoundFile::path));
+        HashMap<String, T> results = new HashMap<>();
+        ImmutableMap.Builder<Path, IndexEntry<T>> newIndex = ImmutableMap.builder();
+        for (LoadedFile<T> loadedFile : loadFiles(files, this.index)) {
+            //the errors are collected per file and reported on this thread in file order
+            loadedFile.errors().forEach(errorHandler);
+            //default factory returns null, which means parsing failed and error notification
+            //was handled by the file loader
+            if(loadedFile.entry() == null) {
+                continue;
+            }
+
+            newIndex.put(loadedFile.file(), loadedFile.entry());
+            //converts D:/server/config/namespace/resource_name/file.extension -> file.extension
+            //converts D:/server/config/namespace/resource_name/directory/file.extension -> directory/file.extension
+            Path relativePath = path.relativize(loadedFile.file());
+            String key = Util.pathToString(relativePath);
+            if(this.shouldStripExtension.test(Util.getFileExtension(key))) {
+                key = Util.removeFileExtension(key);
+            }
+
+            results.put(Util.removeFileExtension(key), loadedFile.entry().value());
+        }
+
+        //files which were deleted or failed to parse are not in the new index
+        this.index = newIndex.build();
+
         return ImmutableMap.copyOf(results);
     }
 
+    private List<LoadedFile<T>> loadFiles(List<FoundFile> files, Map<Path, IndexEntry<T>> previousIndex) {
+        return Util.mapInParallel(files, file -> loadFile(file, previousIndex.get(file.path())), SimpleResourcesCommon.getResourceTreeParallelism());
+    }
+
+    private LoadedFile<T> loadFile(FoundFile file, @Nullable IndexEntry<T> previous) {
+        //neither the modification time nor the size changed, the file does not even need to be read
+        if(previous != null && previous.lastModified() == file.lastModified() && previous.size() == file.size()) {
+            return new LoadedFile<>(file.path(), previous, List.of());
+        }
+
+        List<ResourceParseException> errors = new ArrayList<>();
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.path());
+        } catch (IOException e) {
+            errors.add(new ResourceParseException("Error while loading the file " + SimpleResource.Loader.getRelativePath(file.path()), e));
+            return new LoadedFile<>(file.path(), null, errors);
+        }
+
+        //the file was touched, but the content is the same
+        HashCode hash = Hashing.murmur3_128().hashBytes(content);
+        if(previous != null && previous.hash().equals(hash)) {
+            return new LoadedFile<>(file.path(), new IndexEntry<>(file.lastModified(), file.size(), hash, previous.value()), List.of());
+        }
+
+        T value = this.fileLoader.read(file.path(), content, errors::add);
+        IndexEntry<T> entry = value != null ? new IndexEntry<>(file.lastModified(), file.size(), hash, value) : null;
+        return new LoadedFile<>(file.path(), entry, errors);
+    }
+
+    private record FoundFile(Path path, long lastModified, long size) {
+    }
+
+    private record IndexEntry<T>(long lastModified, long size, HashCode hash, T value) {
+    }
+
+    private record LoadedFile<T>(Path file, @Nullable IndexEntry<T> entry, List<ResourceParseException> errors) {
+    }
+
     @Override
     public ResourceReadWriter<?> getReadWriter() {
         return this.fileLoader.getReadWriter();
@@ -90,4 +152,10 @@ public class ResourceTreeLoader<T> implements SimpleResource.Loader<Map<String,
     public Path getFilePath(Path path, String name) {
         return path.resolve(name);
     }
+
+    //only the changed files get parsed again, the rest is reused from the index
+    @Override
+    public boolean isAffectedBy(Path path, String name, Path changedFile) {
+        return changedFile.startsWith(getFilePath(path, name));
+    }
 }
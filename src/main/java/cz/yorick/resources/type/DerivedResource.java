@@ -0,0 +1,32 @@
+package cz.yorick.resources.type;
+
+import cz.yorick.api.resources.ResourceKey;
+
+import java.util.function.Function;
+
+public class DerivedResource<S, T> implements ResourceKey<T> {
+    private final ResourceKey<S> source;
+    private final Function<S, T> function;
+    private volatile Cached<S, T> cached = null;
+    public DerivedResource(ResourceKey<S> source, Function<S, T> function) {
+        this.source = source;
+        this.function = function;
+    }
+
+    @Override
+    public T getValue() {
+        S sourceValue = this.source.getValue();
+        Cached<S, T> cached = this.cached;
+        //every reload creates a new instance, so the view is only recomputed if the source was reloaded
+        if(cached != null && cached.source() == sourceValue) {
+            return cached.value();
+        }
+
+        T value = this.function.apply(sourceValue);
+        this.cached = new Cached<>(sourceValue, value);
+        return value;
+    }
+
+    private record Cached<S, T>(S source, T value) {
+    }
+}
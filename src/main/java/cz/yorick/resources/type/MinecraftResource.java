@@ -1,6 +1,9 @@
 package cz.yorick.resources.type;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.ResourceKey;
 import cz.yorick.api.resources.ResourceReadWriter;
@@ -8,19 +11,29 @@ import cz.yorick.api.resources.ResourceUtil;
 import cz.yorick.resources.ErrorUtil;
 import cz.yorick.resources.Util;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.fabric.api.resource.SimpleResourceReloadListener;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class MinecraftResource<T> implements ResourceKey<Map<Identifier, T>> {
     private final Consumer<Map<Identifier, T>> reloadListener;
-    private Map<Identifier, T> loadedValue = ImmutableMap.of();
+    private volatile Map<Identifier, T> loadedValue = ImmutableMap.of();
+    //values decoded during the last reload, null if the cache is disabled
+    private volatile DecodeCache<T> decodeCache = null;
     public MinecraftResource(Identifier id, ResourceReadWriter<T> readWriter, ResourceType resourceType, Consumer<Map<Identifier, T>> reloadListener, Identifier... dependencies) {
         this.reloadListener = reloadListener;
         //client resources cannot have the wrapper lookup
@@ -37,47 +50,128 @@ public class MinecraftResource<T> implements ResourceKey<Map<Identifier, T>> {
         return this.loadedValue;
     }
 
-    private void parse(String resourceName, ResourceManager resourceManager, ResourceReadWriter<T> readWriter, RegistryWrapper.WrapperLookup wrapperLookup) {
-        HashMap<Identifier, T> results = new HashMap<>();
-        for(Map.Entry<Identifier, Resource> entry : resourceManager.findResources(resourceName, identifier -> true).entrySet()) {
-            try {
-                Identifier originalKey = entry.getKey();
-                String fileExtension = Util.getFileExtensionOrThrow(originalKey.getPath());
-                T parsed = readWriter.read(fileExtension, entry.getValue().getReader(), wrapperLookup);
-                //converts
-                //namespace:resource_name/file_name.extension -> namespace:file_name.extension
-                //namespace:resource_name/directory/file_name.extension -> namespace:directory/file_name.extension
-                Identifier loadedKey = originalKey.withPath(originalKey.getPath().substring(resourceName.length() + 1));
-                if(readWriter.shouldStripFileExtension(fileExtension)) {
-                    loadedKey = ResourceUtil.removeFileExtension(loadedKey);
+    //runs in the prepare stage off the main thread, errors and warnings are only collected
+    //and get reported in the apply stage, since they may be sent to the reloading player
+    private CompletableFuture<PreparedValue<T>> parse(String resourceName, ResourceManager resourceManager, ResourceReadWriter<T> readWriter, RegistryWrapper.WrapperLookup wrapperLookup, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<Identifier, Resource> resources = resourceManager.findResources(resourceName, identifier -> true);
+            DecodeCache<T> cache = SimpleResourcesCommon.shouldCacheDatapackResources() ? Objects.requireNonNullElse(this.decodeCache, DecodeCache.empty()) : null;
+            //codecs are not guaranteed to be thread safe, so the resources only get decoded
+            //in parallel if the parallelism is raised, on a pool separate from the reload executor
+            List<DecodedResource<T>> decoded = Util.mapInParallel(List.copyOf(resources.entrySet()), entry -> decode(entry.getKey(), entry.getValue(), readWriter, wrapperLookup, cache), SimpleResourcesCommon.getResourceTreeParallelism());
+            return merge(decoded, readWriter, resourceName, cache != null);
+        }, executor);
+    }
+
+    private DecodedResource<T> decode(Identifier originalKey, Resource resource, ResourceReadWriter<T> readWriter, RegistryWrapper.WrapperLookup wrapperLookup, @Nullable DecodeCache<T> cache) {
+        try {
+            String fileExtension = Util.getFileExtensionOrThrow(originalKey.getPath());
+            if(cache == null) {
+                try (Reader reader = resource.getReader()) {
+                    return new DecodedResource<>(originalKey, fileExtension, readWriter.read(fileExtension, reader, wrapperLookup), null, false, null);
                 }
+            }
+
+            byte[] content;
+            try (InputStream stream = resource.getInputStream()) {
+                content = stream.readAllBytes();
+            }
+
+            CacheKey cacheKey = new CacheKey(originalKey, resource.getPackId(), Hashing.murmur3_128().hashBytes(content));
+            T cached = cache.values().get(cacheKey);
+            if(cached != null) {
+                return new DecodedResource<>(originalKey, fileExtension, cached, cacheKey, false, null);
+            }
 
-                if (results.containsKey(loadedKey) && !fileExtension.equals(SimpleResourcesCommon.getPreferredFormat())) {
-                    ErrorUtil.reloadWarning("Duplicate data file ignored with ID " + loadedKey + " (path " + originalKey + ")");
-                    continue;
+            //reloadable registries (loot tables, recipes...) and tags are created again on every reload, so values
+            //decoded with the lookup may hold entries of the previous reload and cannot be reused. Only values which
+            //decode without the lookup get cached, the others are remembered so they are not decoded twice next time
+            if(wrapperLookup != null && !cache.needsLookup().contains(cacheKey)) {
+                try {
+                    return new DecodedResource<>(originalKey, fileExtension, readWriter.read(fileExtension, readContent(content), null), cacheKey, false, null);
+                } catch (Throwable ignored) {
+                    //decoded again below with the lookup, which also reports the error if the file is invalid
                 }
+            }
 
-                results.put(loadedKey, parsed);
-            } catch (Throwable e) {
-                ErrorUtil.reloadError("Error occurred while loading resource: " + entry.getKey().toString(), e);
+            return new DecodedResource<>(originalKey, fileExtension, readWriter.read(fileExtension, readContent(content), wrapperLookup), cacheKey, wrapperLookup != null, null);
+        } catch (Throwable e) {
+            return new DecodedResource<>(originalKey, null, null, null, false, e);
+        }
+    }
+
+    private static Reader readContent(byte[] content) {
+        return new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+    }
+
+    //merges in the order returned by findResources, so duplicates are resolved the same way on every reload
+    private PreparedValue<T> merge(List<DecodedResource<T>> decoded, ResourceReadWriter<T> readWriter, String resourceName, boolean cacheEnabled) {
+        HashMap<Identifier, T> results = new HashMap<>();
+        List<Runnable> messages = new ArrayList<>();
+        //only values decoded during this reload are kept, so entries of changed or removed files get evicted
+        HashMap<CacheKey, T> cacheValues = new HashMap<>();
+        HashSet<CacheKey> needsLookup = new HashSet<>();
+        for (DecodedResource<T> resource : decoded) {
+            Identifier originalKey = resource.originalKey();
+            if(resource.error() != null) {
+                messages.add(() -> ErrorUtil.reloadError("Error occurred while loading resource: " + originalKey.toString(), resource.error()));
+                continue;
             }
+
+            if(resource.cacheKey() != null && resource.value() != null) {
+                if(resource.usedLookup()) {
+                    needsLookup.add(resource.cacheKey());
+                } else {
+                    cacheValues.put(resource.cacheKey(), resource.value());
+                }
+            }
+
+            String fileExtension = resource.fileExtension();
+            //converts
+            //namespace:resource_name/file_name.extension -> namespace:file_name.extension
+            //namespace:resource_name/directory/file_name.extension -> namespace:directory/file_name.extension
+            Identifier loadedKey = originalKey.withPath(originalKey.getPath().substring(resourceName.length() + 1));
+            if(readWriter.shouldStripFileExtension(fileExtension)) {
+                loadedKey = ResourceUtil.removeFileExtension(loadedKey);
+            }
+
+            if (results.containsKey(loadedKey) && !fileExtension.equals(SimpleResourcesCommon.getPreferredFormat())) {
+                String message = "Duplicate data file ignored with ID " + loadedKey + " (path " + originalKey + ")";
+                messages.add(() -> ErrorUtil.reloadWarning(message));
+                continue;
+            }
+
+            results.put(loadedKey, resource.value());
         }
 
-        this.loadedValue = ImmutableMap.copyOf(results);
+        DecodeCache<T> cache = cacheEnabled ? new DecodeCache<>(ImmutableMap.copyOf(cacheValues), ImmutableSet.copyOf(needsLookup)) : null;
+        return new PreparedValue<>(ImmutableMap.copyOf(results), messages, cache);
+    }
+
+    //runs in the apply stage on the main thread
+    private void apply(PreparedValue<T> prepared) {
+        prepared.messages().forEach(Runnable::run);
+        this.decodeCache = prepared.cache();
+        this.loadedValue = prepared.value();
         this.reloadListener.accept(this.loadedValue);
     }
 
-    private SimpleSynchronousResourceReloadListener getListener(Identifier id, ResourceReadWriter<T> readWriter, RegistryWrapper.WrapperLookup lookup, Identifier... dependencies) {
+    private SimpleResourceReloadListener<PreparedValue<T>> getListener(Identifier id, ResourceReadWriter<T> readWriter, RegistryWrapper.WrapperLookup lookup, Identifier... dependencies) {
         List<Identifier> fabricDependencies = Arrays.stream(dependencies).toList();
-        return new SimpleSynchronousResourceReloadListener() {
+        return new SimpleResourceReloadListener<>() {
             @Override
             public Identifier getFabricId() {
                 return id;
             }
 
             @Override
-            public void reload(ResourceManager manager) {
-                parse(id.getPath(), manager, readWriter, lookup);
+            public CompletableFuture<PreparedValue<T>> load(ResourceManager manager, Executor executor) {
+                return parse(id.getPath(), manager, readWriter, lookup, executor);
+            }
+
+            @Override
+            public CompletableFuture<Void> apply(PreparedValue<T> data, ResourceManager manager, Executor executor) {
+                return CompletableFuture.runAsync(() -> MinecraftResource.this.apply(data), executor);
             }
 
             @Override
@@ -86,4 +180,20 @@ public class MinecraftResource<T> implements ResourceKey<Map<Identifier, T>> {
             }
         };
     }
+
+    private record DecodedResource<T>(Identifier originalKey, String fileExtension, T value, @Nullable CacheKey cacheKey, boolean usedLookup, Throwable error) {
+    }
+
+    private record PreparedValue<T>(Map<Identifier, T> value, List<Runnable> messages, @Nullable DecodeCache<T> cache) {
+    }
+
+    private record CacheKey(Identifier id, String packId, HashCode contentHash) {
+    }
+
+    //values only contains the values decoded without the lookup, needsLookup the files which failed to decode without it
+    private record DecodeCache<T>(Map<CacheKey, T> values, Set<CacheKey> needsLookup) {
+        private static <T> DecodeCache<T> empty() {
+            return new DecodeCache<>(ImmutableMap.of(), ImmutableSet.of());
+        }
+    }
 }
@@ -1,27 +1,116 @@
 package cz.yorick.resources.type;
 
+import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.ReloadableResourceKey;
+import cz.yorick.resources.loader.ConfigPrefetcher;
 import net.minecraft.util.Identifier;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class SimpleReloadableResource<T> extends SimpleResource<T> implements ReloadableResourceKey<T> {
     private final Consumer<T> reloadListener;
+    //false until the first load of a lazy resource finishes
+    private volatile boolean loaded;
+    //every load takes the next generation, a value is only published if no load
+    //which started later was published before it, guarded by this
+    private long startedLoads = 0;
+    private long publishedLoad = 0;
+    //value loaded in the background, waiting for the first request to publish it
+    private volatile CompletableFuture<T> prefetched = null;
     public SimpleReloadableResource(Identifier configId, Loader<T> loader, Consumer<T> reloadListener) {
-        super(configId, loader);
+        this(configId, loader, reloadListener, SimpleResourcesCommon.shouldLoadConfigsLazily());
+    }
+
+    /**
+     * @param lazy If the value should only be loaded when it is first requested instead of in the constructor
+     * */
+    public SimpleReloadableResource(Identifier configId, Loader<T> loader, Consumer<T> reloadListener, boolean lazy) {
+        super(configId, loader, lazy);
         this.reloadListener = reloadListener;
-        //supers constructor loads the value
-        this.reloadListener.accept(this.getLoadedValue());
+        this.loaded = !lazy;
+        if(this.loaded) {
+            //supers constructor loads the value, loaded is already set so the listener can read it
+            this.reloadListener.accept(this.getLoadedValue());
+        } else if(SimpleResourcesCommon.shouldPrefetchConfigs()) {
+            //only the loading happens in the background, the value gets published
+            //and the listener invoked on the thread which first requests it
+            this.prefetched = ConfigPrefetcher.load(() -> this.loadValue(this::logLoadError));
+        }
+    }
+
+    /**
+     * Loads the value of a lazy resource and invokes the reload listener with it,
+     * does nothing if the value is already loaded
+     * */
+    public void ensureLoaded() {
+        if(this.loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if(this.loaded) {
+                return;
+            }
+
+            this.publishedLoad = ++this.startedLoads;
+            T value = ConfigPrefetcher.getOrNull(this.prefetched, this.getFile());
+            this.prefetched = null;
+            if(value != null) {
+                this.setLoadedValue(value);
+            } else {
+                this.load(this::logLoadError);
+            }
+
+            //marked as loaded before the listener, so a listener reading the value does not load it again
+            this.loaded = true;
+            this.reloadListener.accept(this.getLoadedValue());
+        }
     }
 
     @Override
-    public void reload(Consumer<Exception> errorHandler) {
+    public synchronized void reload(Consumer<Exception> errorHandler) {
+        this.invalidateDirectoryCache();
+        long generation = ++this.startedLoads;
         this.load(errorHandler::accept);
+        this.publishedLoad = generation;
+        this.prefetched = null;
+        this.loaded = true;
         this.reloadListener.accept(this.getLoadedValue());
     }
 
+    /**
+     * Loads the new value on the calling thread, but publishes it and
+     * invokes the reload listener using the executor. The value is discarded
+     * if a load which started later was published in the meantime
+     * */
+    public void reload(Consumer<Exception> errorHandler, Executor publishExecutor) {
+        long generation;
+        synchronized (this) {
+            generation = ++this.startedLoads;
+        }
+
+        this.invalidateDirectoryCache();
+        T value = this.loadValue(errorHandler::accept);
+        publishExecutor.execute(() -> {
+            synchronized (this) {
+                if(generation < this.publishedLoad) {
+                    return;
+                }
+
+                this.publishedLoad = generation;
+                this.prefetched = null;
+                this.setLoadedValue(value);
+                this.loaded = true;
+                this.reloadListener.accept(value);
+            }
+        });
+    }
+
     @Override
     public T getValue() {
+        this.ensureLoaded();
         return this.getLoadedValue();
     }
 }
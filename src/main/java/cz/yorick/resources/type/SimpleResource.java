@@ -4,6 +4,7 @@ import cz.yorick.SimpleResourcesCommon;
 import cz.yorick.api.resources.ResourceReadWriter;
 import cz.yorick.resources.ResourceParseException;
 import cz.yorick.resources.Util;
+import cz.yorick.resources.loader.DirectoryCache;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.util.Identifier;
 
@@ -12,22 +13,38 @@ import java.nio.file.Path;
 import java.util.function.Consumer;
 
 public class SimpleResource<T> {
+    private final Identifier id;
     private final Path path;
     private final String name;
     private final Loader<T> loader;
-    private T loadedValue;
+    private volatile T loadedValue;
     public SimpleResource(Identifier configId, Loader<T> loader) {
+        this(configId, loader, false);
+    }
+
+    /**
+     * @param lazy If the value should not be loaded in the constructor, it is then
+     *             up to the subclass to load it before it gets requested
+     * */
+    protected SimpleResource(Identifier configId, Loader<T> loader, boolean lazy) {
         Path filePath = Path.of(configId.getNamespace());
         String[] path = configId.getPath().split("/");
         for (int i = 0; i < path.length - 1; i++) {
             filePath = filePath.resolve(path[i]);
         }
 
+        this.id = configId;
         this.path = FabricLoader.getInstance().getConfigDir().resolve(filePath);
         this.loader = loader;
         this.name = path[path.length -1];
         Util.registerConfig(configId, this);
-        this.load(error -> SimpleResourcesCommon.LOGGER.error("Error while loading the resource " + configId, error));
+        if(!lazy) {
+            this.load(this::logLoadError);
+        }
+    }
+
+    protected void logLoadError(ResourceParseException error) {
+        SimpleResourcesCommon.LOGGER.error("Error while loading the resource " + this.id, error);
     }
 
     public T getLoadedValue() {
@@ -35,7 +52,28 @@ public class SimpleResource<T> {
     }
 
     protected void load(Consumer<ResourceParseException> errorHandler) {
-        this.loadedValue = this.loader.load(this.loader.getFilePath(this.path, this.name), errorHandler);
+        this.loadedValue = loadValue(errorHandler);
+    }
+
+    //loads the value without publishing it
+    protected T loadValue(Consumer<ResourceParseException> errorHandler) {
+        return this.loader.load(this.loader.getFilePath(this.path, this.name), errorHandler);
+    }
+
+    //files might have been added or removed since the directory was listed
+    protected void invalidateDirectoryCache() {
+        DirectoryCache.invalidate(this.path);
+    }
+
+    protected void setLoadedValue(T value) {
+        this.loadedValue = value;
+    }
+
+    /**
+     * @return If a change of the file at the path can change the value of this resource
+     * */
+    public boolean isAffectedBy(Path changedFile) {
+        return this.loader.isAffectedBy(this.path, this.name, changedFile);
     }
 
     public ResourceReadWriter<?> getReadWriter() {
@@ -49,6 +87,7 @@ public class SimpleResource<T> {
     public interface Loader<T> {
         T load(Path path, Consumer<ResourceParseException> errorHandler);
         Path getFilePath(Path path, String name);
+        boolean isAffectedBy(Path path, String name, Path changedFile);
         ResourceReadWriter<?> getReadWriter();
         static Path getRelativePath(Path fullPath) {
             return FabricLoader.getInstance().getConfigDir().relativize(fullPath);